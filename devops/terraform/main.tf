@@ -217,6 +217,14 @@ resource "aws_ecs_task_definition" "app" {
           hostPort      = 8080
         }
       ]
+
+      # The service runs several tasks, so they share dispatch state through Postgres
+      environment = [
+        {
+          name  = "DISPATCH_STATE_BACKEND"
+          value = "postgres"
+        }
+      ]
       
       logConfiguration = {
         logDriver = "awslogs"
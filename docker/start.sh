@@ -13,5 +13,11 @@ if [ "$ENABLE_DATABASE" = "true" ]; then
     export SPRING_DATASOURCE_PASSWORD="${DB_PASSWORD}"
 fi
 
+# Report virtual threads pinned by synchronized blocks or native frames
+JAVA_OPTS="${JAVA_OPTS:-}"
+if [ "$VIRTUAL_THREADS_ENABLED" = "true" ]; then
+    JAVA_OPTS="$JAVA_OPTS -Djdk.tracePinnedThreads=short"
+fi
+
 # Start the application
-exec java -jar /app/app.jar
\ No newline at end of file
+exec java $JAVA_OPTS -jar /app/app.jar
\ No newline at end of file
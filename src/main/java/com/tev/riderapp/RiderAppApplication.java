@@ -2,8 +2,10 @@ package com.tev.riderapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RiderAppApplication {
     public static void main(String[] args) {
         SpringApplication.run(RiderAppApplication.class, args);
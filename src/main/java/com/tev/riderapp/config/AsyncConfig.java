@@ -0,0 +1,50 @@
+package com.tev.riderapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Slf4j
+@Configuration
+public class AsyncConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${ride.request.executor.virtual-concurrency-limit:2000}")
+    private int virtualConcurrencyLimit;
+
+    @Value("${ride.request.executor.core-size:16}")
+    private int corePoolSize;
+
+    @Value("${ride.request.executor.max-size:64}")
+    private int maxPoolSize;
+
+    @Value("${ride.request.executor.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Bean(name = "rideRequestExecutor")
+    public Executor rideRequestExecutor() {
+        if (virtualThreadsEnabled) {
+            if (Runtime.version().feature() >= 21) {
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ride-request-");
+                executor.setVirtualThreads(true);
+                executor.setConcurrencyLimit(virtualConcurrencyLimit);
+                return executor;
+            }
+            log.warn("Virtual threads requested but running on Java {}; using platform threads", Runtime.version().feature());
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ride-request-");
+        executor.initialize();
+        return executor;
+    }
+}
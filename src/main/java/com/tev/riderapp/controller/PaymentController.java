@@ -2,6 +2,12 @@ package com.tev.riderapp.controller;
 
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.tev.riderapp.dto.PaymentRequestDto;
+import com.tev.riderapp.dto.PaymentResponseDto;
+import com.tev.riderapp.mapper.PaymentMapper;
+import com.tev.riderapp.model.Payment;
+import com.tev.riderapp.model.PaymentStatus;
+import com.tev.riderapp.service.PaymentService;
 import com.tev.riderapp.service.StripeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +22,23 @@ import java.util.Map;
 public class PaymentController {
     
     private final StripeService stripeService;
+    private final PaymentService paymentService;
+    private final PaymentMapper paymentMapper;
+
+    // Accepted for processing; poll GET /api/payments/{paymentId} until the status leaves PENDING
+    @PostMapping
+    public ResponseEntity<PaymentResponseDto> submitPayment(@RequestBody PaymentRequestDto request) {
+        Payment payment = paymentService.processPayment(request.getRideId(), request.getPaymentType(), request.getPaymentDetails());
+        PaymentResponseDto dto = paymentMapper.toDto(payment);
+        return payment.getStatus() == PaymentStatus.PENDING
+                ? ResponseEntity.accepted().body(dto)
+                : ResponseEntity.ok(dto);
+    }
+
+    @GetMapping("/{paymentId}")
+    public ResponseEntity<PaymentResponseDto> getPayment(@PathVariable Long paymentId) {
+        return ResponseEntity.ok(paymentMapper.toDto(paymentService.getPayment(paymentId)));
+    }
     
     @PostMapping("/create-payment-intent")
     public ResponseEntity<Map<String, String>> createPaymentIntent(@RequestParam double amount) {
@@ -1,40 +1,57 @@
 package com.tev.riderapp.controller;
 
+import com.tev.riderapp.dto.FareQuoteRequestDto;
+import com.tev.riderapp.dto.FareQuoteResponseDto;
 import com.tev.riderapp.dto.RideRequestDto;
 import com.tev.riderapp.dto.RideResponseDto;
 import com.tev.riderapp.mapper.RideMapper;
-import com.tev.riderapp.model.Passenger;
 import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.observer.RideStreamNotifier;
 import com.tev.riderapp.service.RideManagementSystem;
-import com.tev.riderapp.service.UserService;
+import com.tev.riderapp.service.RidePage;
+import com.tev.riderapp.service.RideRequestPipeline;
+import com.tev.riderapp.service.fare.FareQuote;
+import com.tev.riderapp.service.fare.FareQuoteService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+/**
+ * Ride lifecycle endpoints. The passenger, driver and active ride listings return one page at a
+ * time, newest first: {@code size} defaults to 20 and is capped at {@code rides.page.max-size}, and
+ * the cursor for the next page comes back in the {@code X-Next-Cursor} header. This is a breaking
+ * change for clients that read these listings without paging, which used to get every ride and now
+ * get only the first 20; they must follow the header until it is absent.
+ */
 @RestController
 @RequestMapping("/api/rides")
 @RequiredArgsConstructor
 public class RideController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final RideManagementSystem rideService;
-    private final UserService userService;
+    private final RideRequestPipeline rideRequestPipeline;
     private final RideMapper rideMapper;
+    private final RideStreamNotifier rideStreamNotifier;
+    private final FareQuoteService fareQuoteService;
 
     @PostMapping("/request")
-    public ResponseEntity<RideResponseDto> requestRide(@RequestBody RideRequestDto request) {
-        Passenger passenger = userService.getPassenger(request.getPassengerId());
-        Ride ride = rideService.requestRideWithPostcode(
-            passenger, 
-            request.getPickupAddress(), 
-            request.getPickupPostcode(),
-            request.getDropoffAddress(), 
-            request.getDropoffPostcode(), 
-            request.getRideType(),
-            request.getPaymentMethod()
-        );
-        return ResponseEntity.ok(rideMapper.toDto(ride));
+    public CompletableFuture<ResponseEntity<RideResponseDto>> requestRide(@RequestBody RideRequestDto request) {
+        return rideRequestPipeline.requestRide(request)
+                .thenApply(ride -> ResponseEntity.ok(rideMapper.toDto(ride)));
+    }
+
+    @PostMapping("/quote")
+    public ResponseEntity<FareQuoteResponseDto> quoteFare(@RequestBody FareQuoteRequestDto request) {
+        FareQuote quote = fareQuoteService.quote(request.getPassengerId(), request.getPickupPostcode(), request.getPickupAddress(),
+                request.getDropoffPostcode(), request.getDropoffAddress());
+        return ResponseEntity.ok(rideMapper.toDto(quote));
     }
 
     @PutMapping("/{rideId}/accept")
@@ -73,31 +90,46 @@ public class RideController {
         return ResponseEntity.ok(rideMapper.toDto(ride));
     }
 
+    @GetMapping(value = "/{rideId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRide(@PathVariable Long rideId) {
+        return rideStreamNotifier.streamRide(rideService.getRide(rideId));
+    }
+
+    @GetMapping(value = "/offers/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRideOffers(@RequestParam Long driverId) {
+        return rideStreamNotifier.streamOffers(driverId);
+    }
+
     @GetMapping("/passenger/{passengerId}")
-    public ResponseEntity<List<RideResponseDto>> getPassengerRides(@PathVariable Long passengerId) {
-        List<Ride> rides = rideService.getPassengerRides(passengerId);
-        List<RideResponseDto> dtos = rides.stream()
-                .map(rideMapper::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<RideResponseDto>> getPassengerRides(@PathVariable Long passengerId,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "20") int size) {
+        try {
+            return toResponse(rideService.getPassengerRides(passengerId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/driver/{driverId}")
-    public ResponseEntity<List<RideResponseDto>> getDriverRides(@PathVariable Long driverId) {
-        List<Ride> rides = rideService.getDriverRides(driverId);
-        List<RideResponseDto> dtos = rides.stream()
-                .map(rideMapper::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<RideResponseDto>> getDriverRides(@PathVariable Long driverId,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        try {
+            return toResponse(rideService.getDriverRides(driverId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<RideResponseDto>> getActiveRides() {
-        List<Ride> rides = rideService.getActiveRides();
-        List<RideResponseDto> dtos = rides.stream()
-                .map(rideMapper::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<RideResponseDto>> getActiveRides(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        try {
+            return toResponse(rideService.getActiveRides(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping("/{rideId}/rate")
@@ -105,4 +137,16 @@ public class RideController {
         rideService.rateRide(rideId, rating);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    // The body stays a plain list; the cursor for the next page travels in a header
+    private ResponseEntity<List<RideResponseDto>> toResponse(RidePage page) {
+        List<RideResponseDto> dtos = page.getRides().stream()
+                .map(rideMapper::toDto)
+                .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(dtos);
+    }
+}
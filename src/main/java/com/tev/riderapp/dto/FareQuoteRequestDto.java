@@ -0,0 +1,12 @@
+package com.tev.riderapp.dto;
+
+import lombok.Data;
+
+@Data
+public class FareQuoteRequestDto {
+    private Long passengerId;
+    private String pickupAddress;
+    private String pickupPostcode;
+    private String dropoffAddress;
+    private String dropoffPostcode;
+}
@@ -0,0 +1,18 @@
+package com.tev.riderapp.dto;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Ride;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+public class FareQuoteResponseDto {
+    private String quoteId;
+    private Location pickupLocation;
+    private Location dropoffLocation;
+    private double distance;
+    private double surgeMultiplier;
+    private Map<Ride.RideType, Double> fares;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,19 @@
+package com.tev.riderapp.dto;
+
+import com.tev.riderapp.model.PaymentStatus;
+import com.tev.riderapp.model.PaymentType;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class PaymentResponseDto {
+    private Long id;
+    private Long rideId;
+    private double amount;
+    private PaymentType paymentType;
+    private PaymentStatus status;
+    private String transactionId;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime timestamp;
+}
@@ -12,4 +12,5 @@ public class RideRequestDto {
     private String dropoffPostcode;
     private Ride.RideType rideType;
     private String paymentMethod; // "WALLET" or "CREDIT_CARD"
+    private String quoteId; // optional; books at the quoted price without geocoding again
 }
\ No newline at end of file
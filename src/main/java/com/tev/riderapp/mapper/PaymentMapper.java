@@ -0,0 +1,23 @@
+package com.tev.riderapp.mapper;
+
+import com.tev.riderapp.dto.PaymentResponseDto;
+import com.tev.riderapp.model.Payment;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaymentMapper {
+
+    public PaymentResponseDto toDto(Payment payment) {
+        PaymentResponseDto dto = new PaymentResponseDto();
+        dto.setId(payment.getId());
+        dto.setRideId(payment.getRide() != null ? payment.getRide().getId() : null);
+        dto.setAmount(payment.getAmount());
+        dto.setPaymentType(payment.getPaymentType());
+        dto.setStatus(payment.getStatus());
+        dto.setTransactionId(payment.getTransactionId());
+        dto.setAttempts(payment.getAttempts());
+        dto.setLastError(payment.getLastError());
+        dto.setTimestamp(payment.getTimestamp());
+        return dto;
+    }
+}
@@ -1,8 +1,10 @@
 package com.tev.riderapp.mapper;
 
+import com.tev.riderapp.dto.FareQuoteResponseDto;
 import com.tev.riderapp.dto.RideRequestDto;
 import com.tev.riderapp.dto.RideResponseDto;
 import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.service.fare.FareQuote;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -23,4 +25,16 @@ public class RideMapper {
         dto.setSurgeMultiplier(ride.getSurgeMultiplier());
         return dto;
     }
+
+    public FareQuoteResponseDto toDto(FareQuote quote) {
+        FareQuoteResponseDto dto = new FareQuoteResponseDto();
+        dto.setQuoteId(quote.getId());
+        dto.setPickupLocation(quote.getPickupLocation());
+        dto.setDropoffLocation(quote.getDropoffLocation());
+        dto.setDistance(quote.getDistance());
+        dto.setSurgeMultiplier(quote.getSurgeMultiplier());
+        dto.setFares(quote.getFares());
+        dto.setExpiresAt(quote.getExpiresAt());
+        return dto;
+    }
 }
\ No newline at end of file
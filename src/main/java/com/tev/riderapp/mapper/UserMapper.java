@@ -2,6 +2,7 @@ package com.tev.riderapp.mapper;
 
 import com.tev.riderapp.dto.*;
 import com.tev.riderapp.model.*;
+import com.tev.riderapp.service.WalletLedgerService;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -14,7 +15,7 @@ public class UserMapper {
         passenger.setEmail(dto.getEmail());
         passenger.setPhone(dto.getPhone());
         passenger.setPassword(dto.getPassword());
-        passenger.setWalletBalance(dto.getWalletBalance());
+        passenger.setWalletBalanceMinor(WalletLedgerService.toMinorUnits(dto.getWalletBalance()));
         return passenger;
     }
     
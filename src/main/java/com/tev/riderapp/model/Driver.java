@@ -1,5 +1,8 @@
 package com.tev.riderapp.model;
 
+import jakarta.persistence.AttributeOverride;
+import jakarta.persistence.AttributeOverrides;
+import jakarta.persistence.Column;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.OneToMany;
@@ -20,11 +23,16 @@ public class Driver extends User {
     private double rating;
     private double earnings;
     private Integer totalRides = 0;
-    private Location currentLocation;
 
+    // Written only by DriverLocationStore's batched flush, so saving a driver loaded before the
+    // latest flush cannot put an older position back
     @Embedded
-    public Location getCurrentLocation() {
-        return currentLocation;
-    }
+    @AttributeOverrides({
+        @AttributeOverride(name = "latitude", column = @Column(name = "latitude", updatable = false)),
+        @AttributeOverride(name = "longitude", column = @Column(name = "longitude", updatable = false)),
+        @AttributeOverride(name = "address", column = @Column(name = "address", updatable = false)),
+        @AttributeOverride(name = "postcode", column = @Column(name = "postcode", updatable = false))
+    })
+    private Location currentLocation;
 
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.tev.riderapp.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "geocode_cache")
+@Getter
+@Setter
+public class GeocodeCacheEntry {
+    @Id
+    private String postcode;
+    private double latitude;
+    private double longitude;
+    private String address;
+    private LocalDateTime cachedAt;
+}
@@ -0,0 +1,5 @@
+package com.tev.riderapp.model;
+
+public enum OutboxEventType {
+    RIDE_UPDATED
+}
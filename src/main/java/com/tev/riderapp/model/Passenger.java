@@ -1,5 +1,6 @@
 package com.tev.riderapp.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.OneToMany;
 import lombok.Getter;
@@ -14,5 +15,13 @@ import java.util.List;
 public class Passenger extends User {
     @OneToMany(mappedBy = "passenger")
     private List<Ride> rides = new ArrayList<>();
-    private double walletBalance;
-}
\ No newline at end of file
+
+    // Pence; only changed through WalletLedgerService so every change has a ledger entry. Not
+    // updatable, so saving a passenger loaded earlier cannot write back a stale balance
+    @Column(name = "wallet_balance_minor", nullable = false, updatable = false)
+    private long walletBalanceMinor;
+
+    public double getWalletBalance() {
+        return walletBalanceMinor / 100.0;
+    }
+}
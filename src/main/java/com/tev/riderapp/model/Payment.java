@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 @Setter
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -24,5 +25,10 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     private PaymentStatus status;
     private LocalDateTime timestamp;
+    // Also the idempotency key sent to the gateway, so retries never charge twice
     private String transactionId;
+
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
 }
\ No newline at end of file
@@ -19,10 +19,10 @@ public class Ride {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Passenger passenger;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Driver driver;
 
     @Embedded
@@ -54,8 +54,21 @@ public class Ride {
     private double surgeMultiplier;
     private String paymentMethod;
 
+    // Checked on every update, so concurrent read-modify-write transitions fail instead of overwriting each other
+    @Version
+    private long version;
+
     public enum RideStatus {
-        REQUESTED, ACCEPTED, PICKED_UP, COMPLETED, CANCELLED
+        REQUESTED, ACCEPTED, PICKED_UP, COMPLETED, CANCELLED;
+
+        public boolean canTransitionTo(RideStatus next) {
+            return switch (this) {
+                case REQUESTED -> next == ACCEPTED || next == CANCELLED;
+                case ACCEPTED -> next == PICKED_UP || next == CANCELLED;
+                case PICKED_UP -> next == COMPLETED || next == CANCELLED;
+                case COMPLETED, CANCELLED -> false;
+            };
+        }
     }
 
     public enum RideType {
@@ -2,11 +2,15 @@ package com.tev.riderapp.model;
 
 import jakarta.persistence.*;
 
-@Entity
-@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+// Passengers and drivers are separate tables that are never queried polymorphically, so the
+// shared fields are mapped per table instead of through an inheritance hierarchy
+@MappedSuperclass
 public abstract class User {
+    // Pooled allocation: one sequence call hands out a block of 50 ids; both tables share the
+    // sequence so user ids stay unique across passengers and drivers
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     private Long id;
     private String firstName;
     private String lastName;
@@ -0,0 +1,28 @@
+package com.tev.riderapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "wallet_entries")
+@Getter
+@Setter
+public class WalletEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_entries_seq")
+    @SequenceGenerator(name = "wallet_entries_seq", sequenceName = "wallet_entries_seq", allocationSize = 50)
+    private Long id;
+
+    private Long passengerId;
+
+    // Signed amount in pence: credits are positive, debits negative
+    private long amountMinor;
+
+    @Enumerated(EnumType.STRING)
+    private WalletEntryType entryType;
+    private String reference;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package com.tev.riderapp.model;
+
+public enum WalletEntryType {
+    TOP_UP,
+    WITHDRAWAL,
+    RIDE_PAYMENT,
+    REFUND
+}
@@ -0,0 +1,161 @@
+package com.tev.riderapp.observer;
+
+import com.tev.riderapp.model.Ride;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers ride updates to {@link RideObserver}s off the request thread. Updates are spread over
+ * a fixed number of lanes by recipient, so each passenger sees their updates in order while
+ * different passengers are notified in parallel. Each lane has a bounded queue; when it is full
+ * the publisher waits briefly and then delivers inline, so producers slow down instead of
+ * updates being dropped.
+ */
+@Slf4j
+@Component
+public class RideEventBus {
+    private final List<RideObserver> observers = new CopyOnWriteArrayList<>();
+    private final Map<String, Timer> observerTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> observerFailures = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ride.events.lanes:4}")
+    private int laneCount;
+
+    @Value("${ride.events.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${ride.events.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${ride.events.publish-timeout-ms:50}")
+    private long publishTimeoutMs;
+
+    private List<BlockingQueue<Ride>> lanes;
+    private ExecutorService executor;
+    private Counter callerRuns;
+    private volatile boolean running;
+
+    public RideEventBus(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        lanes = new ArrayList<>(laneCount);
+        executor = Executors.newFixedThreadPool(laneCount, new CustomizableThreadFactory("ride-events-"));
+        callerRuns = meterRegistry.counter("ride.events.caller.runs");
+        running = true;
+        for (int i = 0; i < laneCount; i++) {
+            BlockingQueue<Ride> queue = new ArrayBlockingQueue<>(queueCapacity);
+            lanes.add(queue);
+            meterRegistry.gauge("ride.events.queue.size", Tags.of("lane", String.valueOf(i)), queue, BlockingQueue::size);
+            executor.execute(() -> drain(queue));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Ride event lanes did not drain before shutdown");
+        }
+    }
+
+    public void subscribe(RideObserver observer) {
+        observers.add(observer);
+    }
+
+    public void unsubscribe(RideObserver observer) {
+        observers.remove(observer);
+    }
+
+    public void publish(Ride ride) {
+        BlockingQueue<Ride> lane = lanes.get(Math.floorMod(recipientOf(ride).hashCode(), lanes.size()));
+        try {
+            if (running && lane.offer(ride, publishTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        callerRuns.increment();
+        deliver(List.of(ride));
+    }
+
+    private void drain(BlockingQueue<Ride> queue) {
+        List<Ride> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Ride first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to deliver ride events", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Ride> batch) {
+        Map<Object, List<Ride>> byRecipient = new LinkedHashMap<>();
+        for (Ride ride : batch) {
+            byRecipient.computeIfAbsent(recipientOf(ride), key -> new ArrayList<>()).add(ride);
+        }
+        for (List<Ride> rides : byRecipient.values()) {
+            for (RideObserver observer : observers) {
+                deliverTo(observer, rides);
+            }
+        }
+    }
+
+    private void deliverTo(RideObserver observer, List<Ride> rides) {
+        String name = observer.getClass().getSimpleName();
+        Timer timer = observerTimers.computeIfAbsent(name, key -> meterRegistry.timer("ride.observer.latency", "observer", key));
+        long start = System.nanoTime();
+        try {
+            observer.updateAll(rides);
+        } catch (RuntimeException e) {
+            observerFailures.computeIfAbsent(name, key -> meterRegistry.counter("ride.observer.failures", "observer", key)).increment();
+            log.warn("Observer {} failed for ride {}: {}", name, rides.get(0).getId(), e.getMessage());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Object recipientOf(Ride ride) {
+        if (ride.getPassenger() != null && ride.getPassenger().getId() != null) {
+            return ride.getPassenger().getId();
+        }
+        return ride.getId() != null ? ride.getId() : 0L;
+    }
+}
@@ -3,6 +3,18 @@ package com.tev.riderapp.observer;
 
 import com.tev.riderapp.model.Ride;
 
+import java.util.List;
+
 public interface RideObserver {
     void update(Ride ride);
-}
\ No newline at end of file
+
+    /**
+     * Receives a batch of updates for one recipient, oldest first. Override to send a single
+     * combined notification instead of one per update.
+     */
+    default void updateAll(List<Ride> rides) {
+        for (Ride ride : rides) {
+            update(ride);
+        }
+    }
+}
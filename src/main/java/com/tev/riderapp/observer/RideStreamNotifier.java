@@ -0,0 +1,265 @@
+package com.tev.riderapp.observer;
+
+import com.tev.riderapp.dto.RideResponseDto;
+import com.tev.riderapp.mapper.RideMapper;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import com.tev.riderapp.service.dispatch.DriverLocationIndex;
+import com.tev.riderapp.service.dispatch.DriverLocationStore;
+import com.tev.riderapp.service.dispatch.cluster.DispatchEvent;
+import com.tev.riderapp.service.dispatch.cluster.DispatchStateBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes ride updates over Server-Sent Events. Passengers follow a single ride (status changes
+ * plus the assigned driver's position); drivers receive offers for new rides near them.
+ * Open streams are held by the servlet container's async support, not by a thread each.
+ *
+ * A stream may be open on a different node from the one that relays the ride's outbox event or
+ * receives the driver's pings. Those nodes announce both through the dispatch state backend. A
+ * node loads an announced ride only if it holds a stream for it, or an offer stream for a driver
+ * near the pickup. Loads run off the listener thread and are batched.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RideStreamNotifier implements RideObserver {
+    private final RideEventBus rideEventBus;
+    private final RideMapper rideMapper;
+    private final DriverLocationIndex driverLocationIndex;
+    private final DriverLocationStore driverLocationStore;
+    private final DispatchStateBackend dispatchStateBackend;
+    private final RideRepository rideRepository;
+
+    @Value("${ride.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    @Value("${ride.stream.offer-radius-km:5}")
+    private double offerRadiusKm;
+
+    private final Map<Long, Set<SseEmitter>> rideStreams = new ConcurrentHashMap<>();
+    private final Map<Long, SseEmitter> driverStreams = new ConcurrentHashMap<>();
+    // Driver id -> ride id for rides that are accepted but not finished
+    private final Map<Long, Long> assignedRides = new ConcurrentHashMap<>();
+    // Rides announced by other nodes and waiting to be loaded
+    private final Set<Long> pendingRides = ConcurrentHashMap.newKeySet();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("ride-stream-loader-"));
+
+    @PostConstruct
+    public void register() {
+        rideEventBus.subscribe(this);
+        driverLocationStore.addListener(this::onLocalDriverMoved);
+        dispatchStateBackend.subscribe(this::onRemoteEvent);
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    public SseEmitter streamRide(Ride ride) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Long rideId = ride.getId();
+        rideStreams.computeIfAbsent(rideId, key -> ConcurrentHashMap.newKeySet()).add(emitter);
+        Runnable cleanup = () -> rideStreams.computeIfPresent(rideId, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+
+        trackAssignment(ride);
+        send(emitter, "ride-status", rideMapper.toDto(ride));
+        return emitter;
+    }
+
+    public SseEmitter streamOffers(Long driverId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        SseEmitter previous = driverStreams.put(driverId, emitter);
+        if (previous != null) {
+            previous.complete();
+        }
+        Runnable cleanup = () -> driverStreams.remove(driverId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+        return emitter;
+    }
+
+    public boolean hasOfferStream(Long driverId) {
+        return driverStreams.containsKey(driverId);
+    }
+
+    // Targeted offer chosen by the batch dispatcher; false if the driver has no open stream
+    public boolean offerRide(Long driverId, Ride ride) {
+        SseEmitter emitter = driverStreams.get(driverId);
+        if (emitter == null) {
+            return false;
+        }
+        send(emitter, "dispatch-offer", rideMapper.toDto(ride));
+        return true;
+    }
+
+    @Override
+    public void update(Ride ride) {
+        trackAssignment(ride);
+        if (ride.getStatus() == Ride.RideStatus.REQUESTED) {
+            offerToNearbyDrivers(ride);
+        }
+
+        Set<SseEmitter> emitters = rideStreams.get(ride.getId());
+        if (emitters == null) {
+            return;
+        }
+        RideResponseDto dto = rideMapper.toDto(ride);
+        for (SseEmitter emitter : emitters) {
+            send(emitter, "ride-status", dto);
+        }
+        if (ride.getStatus() == Ride.RideStatus.COMPLETED || ride.getStatus() == Ride.RideStatus.CANCELLED) {
+            Set<SseEmitter> finished = rideStreams.remove(ride.getId());
+            if (finished != null) {
+                finished.forEach(SseEmitter::complete);
+            }
+        }
+    }
+
+    // Keeps load balancer idle timeouts from closing quiet streams and reaps dead connections
+    @Scheduled(fixedDelayString = "${ride.stream.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        SseEmitter.SseEventBuilder ping = SseEmitter.event().comment("ping");
+        rideStreams.values().forEach(emitters -> emitters.forEach(emitter -> send(emitter, ping)));
+        driverStreams.values().forEach(emitter -> send(emitter, ping));
+    }
+
+    private void onLocalDriverMoved(Long driverId, Location location) {
+        onDriverMoved(driverId, location);
+        // Indexed drivers reach other nodes through index replication; drivers on a ride are not indexed
+        if (!driverLocationIndex.contains(driverId)) {
+            dispatchStateBackend.publish(DispatchEvent.driverMoved(driverId, location.getLatitude(), location.getLongitude()));
+        }
+    }
+
+    private void onRemoteEvent(DispatchEvent event) {
+        switch (event.getType()) {
+            case RIDE_UPDATED -> {
+                if (wantsRide(event) && pendingRides.add(event.getId())) {
+                    loader.execute(this::loadPendingRides);
+                }
+            }
+            case DRIVER_MOVED -> {
+                Location location = new Location();
+                location.setLatitude(event.getLatitude());
+                location.setLongitude(event.getLongitude());
+                onDriverMoved(event.getId(), location);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private boolean wantsRide(DispatchEvent event) {
+        if (rideStreams.containsKey(event.getId())) {
+            return true;
+        }
+        if (driverStreams.isEmpty() || Double.isNaN(event.getLatitude()) || Double.isNaN(event.getLongitude())) {
+            return false;
+        }
+        for (Driver driver : driverLocationIndex.findWithinRadius(event.getLatitude(), event.getLongitude(), offerRadiusKm)) {
+            if (driverStreams.containsKey(driver.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void loadPendingRides() {
+        List<Long> rideIds = new ArrayList<>(pendingRides);
+        if (rideIds.isEmpty()) {
+            return;
+        }
+        // Cleared before the read, so an update announced meanwhile triggers another load
+        pendingRides.removeAll(rideIds);
+        try {
+            rideRepository.findByIdIn(rideIds).forEach(this::update);
+        } catch (RuntimeException e) {
+            log.warn("Could not load {} rides updated on another node: {}", rideIds.size(), e.getMessage());
+        }
+    }
+
+    private void onDriverMoved(Long driverId, Location location) {
+        Long rideId = assignedRides.get(driverId);
+        if (rideId == null) {
+            return;
+        }
+        Set<SseEmitter> emitters = rideStreams.get(rideId);
+        if (emitters != null) {
+            for (SseEmitter emitter : emitters) {
+                send(emitter, "driver-location", location);
+            }
+        }
+    }
+
+    private void trackAssignment(Ride ride) {
+        Driver driver = ride.getDriver();
+        if (driver == null || driver.getId() == null) {
+            return;
+        }
+        switch (ride.getStatus()) {
+            case ACCEPTED, PICKED_UP -> assignedRides.put(driver.getId(), ride.getId());
+            case COMPLETED, CANCELLED -> assignedRides.remove(driver.getId(), ride.getId());
+            default -> {
+            }
+        }
+    }
+
+    private void offerToNearbyDrivers(Ride ride) {
+        Location pickup = ride.getPickupLocation();
+        if (pickup == null || driverStreams.isEmpty()) {
+            return;
+        }
+        RideResponseDto offer = null;
+        for (Driver driver : driverLocationIndex.findWithinRadius(pickup.getLatitude(), pickup.getLongitude(), offerRadiusKm)) {
+            SseEmitter emitter = driverStreams.get(driver.getId());
+            if (emitter != null) {
+                if (offer == null) {
+                    offer = rideMapper.toDto(ride);
+                }
+                send(emitter, "ride-offer", offer);
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, String eventName, Object payload) {
+        send(emitter, SseEmitter.event().name(eventName).data(payload));
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; completing triggers the cleanup callbacks
+            log.debug("Closing ride stream: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+}
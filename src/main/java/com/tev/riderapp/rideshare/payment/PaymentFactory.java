@@ -2,6 +2,7 @@ package com.tev.riderapp.rideshare.payment;
 
 
 import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.service.WalletLedgerService;
 
 public class PaymentFactory {
     public static PaymentStrategy createPayment(String type, Object... args) {
@@ -13,8 +14,8 @@ public class PaymentFactory {
                 throw new IllegalArgumentException("Invalid arguments for credit card payment");
             
             case "WALLET":
-                if (args.length == 1 && args[0] instanceof Passenger) {
-                    return new WalletPayment((Passenger) args[0]);
+                if (args.length == 2 && args[0] instanceof Passenger && args[1] instanceof WalletLedgerService) {
+                    return new WalletPayment((Passenger) args[0], (WalletLedgerService) args[1]);
                 }
                 throw new IllegalArgumentException("Invalid arguments for wallet payment");
             
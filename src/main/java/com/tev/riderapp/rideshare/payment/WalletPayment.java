@@ -2,26 +2,35 @@ package com.tev.riderapp.rideshare.payment;
 
 
 import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.WalletEntryType;
+import com.tev.riderapp.service.WalletLedgerService;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class WalletPayment implements PaymentStrategy {
     private Passenger passenger;
+    private WalletLedgerService walletLedgerService;
 
-    public WalletPayment(Passenger passenger) {
+    public WalletPayment(Passenger passenger, WalletLedgerService walletLedgerService) {
         this.passenger = passenger;
+        this.walletLedgerService = walletLedgerService;
     }
 
+    // Failures propagate so the caller's transaction rolls back instead of carrying on unpaid
     @Override
     public boolean processPayment(double amount) {
-        if (passenger.getWalletBalance() >= amount) {
-            passenger.setWalletBalance(passenger.getWalletBalance() - amount);
+        try {
+            walletLedgerService.debit(passenger.getId(), WalletLedgerService.toMinorUnits(amount), WalletEntryType.RIDE_PAYMENT, null);
             return true;
+        } catch (RuntimeException e) {
+            log.warn("Wallet payment of {} failed for passenger {}: {}", amount, passenger.getId(), e.getMessage());
+            throw e;
         }
-        return false;
     }
 
     @Override
     public boolean refundPayment(double amount) {
-        passenger.setWalletBalance(passenger.getWalletBalance() + amount);
+        walletLedgerService.credit(passenger.getId(), WalletLedgerService.toMinorUnits(amount), WalletEntryType.REFUND, null);
         return true;
     }
-}
\ No newline at end of file
+}
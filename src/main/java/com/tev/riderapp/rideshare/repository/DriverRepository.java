@@ -1,10 +1,33 @@
 package com.tev.riderapp.rideshare.repository;
 
 import com.tev.riderapp.model.Driver;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface DriverRepository extends JpaRepository<Driver, Long> {
     Driver findByEmail(String email);
     List<Driver> findByAvailableTrue();
+
+    @Query("select min(d.id) from Driver d where d.available = true")
+    Long findMinAvailableId();
+
+    @Query("select max(d.id) from Driver d where d.available = true")
+    Long findMaxAvailableId();
+
+    // Keyset page of available drivers with afterId < id < beforeId, in id order
+    @Query("select d from Driver d where d.available = true and d.id > :afterId and d.id < :beforeId order by d.id")
+    List<Driver> findAvailableBetween(@Param("afterId") long afterId, @Param("beforeId") long beforeId, Limit limit);
+
+    @Query("select d.id from Driver d where d.available = true and d.id in :ids")
+    List<Long> findAvailableIdsIn(@Param("ids") Collection<Long> ids);
+
+    // Set without loading the driver, so a racing accept does not read and write back a whole row
+    @Modifying
+    @Query("update Driver d set d.available = false where d.id = :id")
+    int markUnavailable(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.tev.riderapp.rideshare.repository;
+
+import com.tev.riderapp.model.GeocodeCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCacheEntry, String> {
+    @Transactional
+    @Modifying
+    @Query("delete from GeocodeCacheEntry e where e.cachedAt < :cutoff")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff);
+}
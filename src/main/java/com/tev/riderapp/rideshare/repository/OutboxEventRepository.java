@@ -0,0 +1,15 @@
+package com.tev.riderapp.rideshare.repository;
+
+import com.tev.riderapp.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // Rows locked by another relay are skipped, so several nodes can drain the outbox at once
+    @Query(value = "SELECT * FROM outbox_events WHERE attempts < :maxAttempts ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+}
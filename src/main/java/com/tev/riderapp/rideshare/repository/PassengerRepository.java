@@ -1,7 +1,26 @@
 package com.tev.riderapp.rideshare.repository;
 import com.tev.riderapp.model.Passenger;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface PassengerRepository extends JpaRepository<Passenger, Long> {
     Passenger findByEmail(String email);
-}
\ No newline at end of file
+
+    @Query("select p.walletBalanceMinor from Passenger p where p.id = :id")
+    Optional<Long> findWalletBalanceMinor(@Param("id") Long id);
+
+    // Balance changes are single conditional statements so concurrent updates cannot be lost
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Passenger p set p.walletBalanceMinor = p.walletBalanceMinor + :amount where p.id = :id")
+    int creditWallet(@Param("id") Long id, @Param("amount") long amountMinor);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Passenger p set p.walletBalanceMinor = p.walletBalanceMinor - :amount"
+            + " where p.id = :id and p.walletBalanceMinor >= :amount")
+    int debitWallet(@Param("id") Long id, @Param("amount") long amountMinor);
+}
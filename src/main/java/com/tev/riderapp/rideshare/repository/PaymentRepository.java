@@ -1,12 +1,35 @@
 package com.tev.riderapp.rideshare.repository;
 
 import com.tev.riderapp.model.Payment;
+import com.tev.riderapp.model.PaymentStatus;
 import com.tev.riderapp.model.Ride;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Payment findByRide(Ride ride);
     List<Payment> findByRidePassengerId(Long passengerId);
-}
\ No newline at end of file
+
+    @Query("select p.id from Payment p where p.status = :status and p.nextAttemptAt <= :now order by p.nextAttemptAt")
+    List<Long> findDueIds(@Param("status") PaymentStatus status, @Param("now") LocalDateTime now, Limit limit);
+
+    // Leases a due payment to one worker; returns 0 if another worker or node got there first
+    @Transactional
+    @Modifying
+    @Query("update Payment p set p.nextAttemptAt = :leaseUntil"
+            + " where p.id = :id and p.status = :status and p.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("status") PaymentStatus status,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Compare-and-set on status; returns 0 if a concurrent caller moved the payment first
+    @Modifying
+    @Query("update Payment p set p.status = :next where p.id = :id and p.status = :expected")
+    int updateStatus(@Param("id") Long id, @Param("expected") PaymentStatus expected, @Param("next") PaymentStatus next);
+}
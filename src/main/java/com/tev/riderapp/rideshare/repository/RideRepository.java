@@ -1,13 +1,78 @@
 package com.tev.riderapp.rideshare.repository;
 
 import com.tev.riderapp.model.Driver;
-import com.tev.riderapp.model.Passenger;
 import com.tev.riderapp.model.Ride;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+// Ride reads fetch passenger and driver in the same select; the associations are lazy otherwise
 public interface RideRepository extends JpaRepository<Ride, Long> {
-    List<Ride> findByPassenger(Passenger passenger);
-    List<Ride> findByDriver(Driver driver);
-    List<Ride> findByStatus(Ride.RideStatus status);
-}
\ No newline at end of file
+    @Override
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    Optional<Ride> findById(Long id);
+
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    List<Ride> findByIdIn(Collection<Long> ids);
+
+    // Oldest first, so long-waiting requests are matched ahead of new ones
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    @Query("select r from Ride r where r.status = :status order by r.requestTime, r.id")
+    List<Ride> findOldestByStatus(@Param("status") Ride.RideStatus status, Limit limit);
+
+    @Query("select r.id from Ride r where r.status in :statuses and r.id > :afterId order by r.id")
+    List<Long> findIdsByStatusInAfter(@Param("statuses") Collection<Ride.RideStatus> statuses, @Param("afterId") long afterId, Limit limit);
+
+    // Compare-and-set on status: of several callers racing from the same status exactly one updates the row
+    @Modifying
+    @Query("update Ride r set r.status = :next, r.driver = :driver, r.version = r.version + 1"
+            + " where r.id = :id and r.status = :expected")
+    int assignDriver(@Param("id") Long id, @Param("expected") Ride.RideStatus expected,
+                     @Param("next") Ride.RideStatus next, @Param("driver") Driver driver);
+
+    // Keyset pages ordered newest first on (requestTime, id); the "Before" variants continue after a cursor
+
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    @Query("select r from Ride r where r.passenger.id = :passengerId order by r.requestTime desc, r.id desc")
+    List<Ride> findPassengerRides(@Param("passengerId") Long passengerId, Limit limit);
+
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    @Query("select r from Ride r where r.passenger.id = :passengerId"
+            + " and (r.requestTime < :requestTime or (r.requestTime = :requestTime and r.id < :id))"
+            + " order by r.requestTime desc, r.id desc")
+    List<Ride> findPassengerRidesBefore(@Param("passengerId") Long passengerId,
+                                        @Param("requestTime") LocalDateTime requestTime,
+                                        @Param("id") Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    @Query("select r from Ride r where r.driver.id = :driverId order by r.requestTime desc, r.id desc")
+    List<Ride> findDriverRides(@Param("driverId") Long driverId, Limit limit);
+
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    @Query("select r from Ride r where r.driver.id = :driverId"
+            + " and (r.requestTime < :requestTime or (r.requestTime = :requestTime and r.id < :id))"
+            + " order by r.requestTime desc, r.id desc")
+    List<Ride> findDriverRidesBefore(@Param("driverId") Long driverId,
+                                     @Param("requestTime") LocalDateTime requestTime,
+                                     @Param("id") Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    @Query("select r from Ride r where r.status = :status order by r.requestTime desc, r.id desc")
+    List<Ride> findByStatus(@Param("status") Ride.RideStatus status, Limit limit);
+
+    @EntityGraph(attributePaths = {"passenger", "driver"})
+    @Query("select r from Ride r where r.status = :status"
+            + " and (r.requestTime < :requestTime or (r.requestTime = :requestTime and r.id < :id))"
+            + " order by r.requestTime desc, r.id desc")
+    List<Ride> findByStatusBefore(@Param("status") Ride.RideStatus status,
+                                  @Param("requestTime") LocalDateTime requestTime,
+                                  @Param("id") Long id, Limit limit);
+}
@@ -0,0 +1,10 @@
+package com.tev.riderapp.rideshare.repository;
+
+import com.tev.riderapp.model.WalletEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface WalletEntryRepository extends JpaRepository<WalletEntry, Long> {
+    List<WalletEntry> findByPassengerIdOrderByIdDesc(Long passengerId);
+}
@@ -0,0 +1,59 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.service.maps.LocalDistanceProvider;
+import com.tev.riderapp.service.maps.RouteEstimate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DistanceService {
+    private final GoogleMapsService googleMapsService;
+    private final LocalDistanceProvider localDistanceProvider;
+
+    // "google" uses the Distance Matrix API with local fallback, "local" never leaves the JVM
+    @Value("${maps.distance.provider:google}")
+    private String provider;
+
+    public double calculateDistance(Location pickup, Location dropoff) {
+        return estimate(pickup, dropoff).getDistanceKm();
+    }
+
+    public RouteEstimate estimate(Location pickup, Location dropoff) {
+        if ("local".equalsIgnoreCase(provider)) {
+            return localDistanceProvider.estimate(pickup, dropoff);
+        }
+        try {
+            return googleMapsService.estimate(pickup, dropoff);
+        } catch (RuntimeException e) {
+            log.warn("Remote distance lookup failed, using local estimate: {}", e.getMessage());
+            return localDistanceProvider.estimate(pickup, dropoff);
+        }
+    }
+
+    // Estimates from every origin to one destination, aligned with origins; one batched request when remote
+    public List<RouteEstimate> estimateFromOrigins(List<Location> origins, Location destination) {
+        List<RouteEstimate> estimates = null;
+        if (!"local".equalsIgnoreCase(provider)) {
+            try {
+                estimates = googleMapsService.estimateFromOrigins(origins, destination);
+            } catch (RuntimeException e) {
+                log.warn("Remote distance lookup failed, using local estimates: {}", e.getMessage());
+            }
+        }
+        List<RouteEstimate> results = new ArrayList<>(origins.size());
+        for (int i = 0; i < origins.size(); i++) {
+            RouteEstimate estimate = estimates != null ? estimates.get(i) : null;
+            // Pairs the API could not route fall back one by one
+            results.add(estimate != null ? estimate : localDistanceProvider.estimate(origins.get(i), destination));
+        }
+        return results;
+    }
+}
@@ -3,41 +3,35 @@ package com.tev.riderapp.service;
 import com.tev.riderapp.model.Driver;
 import com.tev.riderapp.model.Location;
 import com.tev.riderapp.rideshare.repository.DriverRepository;
+import com.tev.riderapp.service.dispatch.DriverLocationIndex;
+import com.tev.riderapp.service.dispatch.DriverLocationStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DriverService {
     private final DriverRepository driverRepository;
+    private final DriverLocationIndex driverLocationIndex;
+    private final DriverLocationStore driverLocationStore;
 
     public List<Driver> getNearbyDrivers(Location location, double radiusKm) {
-        List<Driver> availableDrivers = driverRepository.findByAvailableTrue();
-        
-        return availableDrivers.stream()
-                .filter(driver -> {
-                    if (driver.getCurrentLocation() == null) return false;
-                    double distance = calculateDistance(location, driver.getCurrentLocation());
-                    return distance <= radiusKm;
-                })
-                .collect(Collectors.toList());
+        return driverLocationIndex.findWithinRadius(location.getLatitude(), location.getLongitude(), radiusKm);
     }
 
     public void updateLocation(Long driverId, Location location) {
-        Driver driver = driverRepository.findById(driverId)
-                .orElseThrow(() -> new RuntimeException("Driver not found"));
-        driver.setCurrentLocation(location);
-        driverRepository.save(driver);
+        driverLocationStore.record(driverId, location);
     }
 
     public void updateAvailability(Long driverId, boolean available) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
+        driverLocationStore.withLatestLocation(driver);
         driver.setAvailable(available);
         driverRepository.save(driver);
+        driverLocationIndex.update(driver);
     }
 
     public Double getEarnings(Long driverId) {
@@ -51,21 +45,4 @@ public class DriverService {
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
         return driver.getRating();
     }
-
-    private double calculateDistance(Location loc1, Location loc2) {
-        final int R = 6371; // Earth's radius in kilometers
-
-        double lat1 = Math.toRadians(loc1.getLatitude());
-        double lon1 = Math.toRadians(loc1.getLongitude());
-        double lat2 = Math.toRadians(loc2.getLatitude());
-        double lon2 = Math.toRadians(loc2.getLongitude());
-
-        double dlon = lon2 - lon1;
-        double dlat = lat2 - lat1;
-
-        double a = Math.pow(Math.sin(dlat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(dlon / 2), 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return R * c;
-    }
 }
\ No newline at end of file
@@ -1,22 +1,61 @@
 package com.tev.riderapp.service;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tev.riderapp.model.Location;
+import com.tev.riderapp.service.maps.DistanceProvider;
+import com.tev.riderapp.service.maps.GeocodeCache;
+import com.tev.riderapp.service.maps.RouteEstimate;
+import com.tev.riderapp.service.maps.RouteEstimateCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
-public class GoogleMapsService {
+public class GoogleMapsService implements DistanceProvider {
+    // Distance Matrix allows at most 25 origins per request
+    private static final int MAX_ORIGINS_PER_REQUEST = 25;
     
     @Value("${google.maps.api.key:YOUR_API_KEY}")
     private String apiKey;
+
+    @Value("${google.maps.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${google.maps.read-timeout-ms:3000}")
+    private int readTimeoutMs;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    private RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private GeocodeCache geocodeCache;
+
+    @Autowired
+    private RouteEstimateCache routeEstimateCache;
+
+    @PostConstruct
+    public void init() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        restTemplate = new RestTemplate(requestFactory);
+    }
     
     public Location geocodePostcode(String postcode) {
+        return geocodeCache.get(postcode, this::fetchGeocode);
+    }
+
+    private Location fetchGeocode(String postcode) {
         try {
             System.out.println("Geocoding postcode: " + postcode);
             System.out.println("Using API key: " + (apiKey != null ? apiKey.substring(0, 10) + "..." : "null"));
@@ -63,28 +102,80 @@ public class GoogleMapsService {
         return null;
     }
     
-    public double calculateDistance(Location pickup, Location dropoff) {
+    @Override
+    public RouteEstimate estimate(Location pickup, Location dropoff) {
+        RouteEstimate estimate = estimateFromOrigins(List.of(pickup), dropoff).get(0);
+        if (estimate == null) {
+            throw new IllegalStateException("No route found");
+        }
+        return estimate;
+    }
+
+    /**
+     * Road estimates from every origin to a single destination, aligned with the origins list.
+     * Cached pairs are served locally and the rest go out in as few Distance Matrix requests as
+     * the per-request origin limit allows. Elements the API could not route are returned as null.
+     */
+    public List<RouteEstimate> estimateFromOrigins(List<Location> origins, Location destination) {
+        List<RouteEstimate> results = new ArrayList<>(Collections.nCopies(origins.size(), null));
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < origins.size(); i++) {
+            RouteEstimate cached = routeEstimateCache.get(origins.get(i), destination);
+            if (cached != null) {
+                results.set(i, cached);
+            } else {
+                misses.add(i);
+            }
+        }
+
+        for (int start = 0; start < misses.size(); start += MAX_ORIGINS_PER_REQUEST) {
+            List<Integer> chunk = misses.subList(start, Math.min(start + MAX_ORIGINS_PER_REQUEST, misses.size()));
+            List<RouteEstimate> chunkResults = fetchDistanceMatrix(chunk.stream().map(origins::get).toList(), destination);
+            for (int j = 0; j < chunk.size(); j++) {
+                RouteEstimate estimate = chunkResults.get(j);
+                if (estimate != null) {
+                    int index = chunk.get(j);
+                    routeEstimateCache.put(origins.get(index), destination, estimate);
+                    results.set(index, estimate);
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<RouteEstimate> fetchDistanceMatrix(List<Location> origins, Location destination) {
+        String originParam = origins.stream()
+                .map(origin -> String.format("%f,%f", origin.getLatitude(), origin.getLongitude()))
+                .collect(Collectors.joining("|"));
+        String url = String.format(
+            "https://maps.googleapis.com/maps/api/distancematrix/json?origins={origins}&destinations=%f,%f&units=metric&key=%s",
+            destination.getLatitude(), destination.getLongitude(),
+            apiKey
+        );
+
+        String response = restTemplate.getForObject(url, String.class, originParam);
         try {
-            String url = String.format(
-                "https://maps.googleapis.com/maps/api/distancematrix/json?origins=%f,%f&destinations=%f,%f&units=metric&key=%s",
-                pickup.getLatitude(), pickup.getLongitude(),
-                dropoff.getLatitude(), dropoff.getLongitude(),
-                apiKey
-            );
-            
-            String response = restTemplate.getForObject(url, String.class);
             JsonNode root = objectMapper.readTree(response);
-            
-            if (root.get("status").asText().equals("OK")) {
-                JsonNode element = root.get("rows").get(0).get("elements").get(0);
-                if (element.get("status").asText().equals("OK")) {
-                    int distanceInMeters = element.get("distance").get("value").asInt();
-                    return distanceInMeters / 1000.0;
+            String status = root.get("status").asText();
+            if (!status.equals("OK")) {
+                throw new IllegalStateException("Distance Matrix request failed with status: " + status);
+            }
+            // One row per origin, each with a single element for the destination
+            JsonNode rows = root.get("rows");
+            List<RouteEstimate> estimates = new ArrayList<>(origins.size());
+            for (int i = 0; i < origins.size(); i++) {
+                JsonNode element = rows.get(i).get("elements").get(0);
+                if (!element.get("status").asText().equals("OK")) {
+                    estimates.add(null);
+                    continue;
                 }
+                int distanceInMeters = element.get("distance").get("value").asInt();
+                long durationInSeconds = element.get("duration").get("value").asLong();
+                estimates.add(new RouteEstimate(distanceInMeters / 1000.0, durationInSeconds));
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            return estimates;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid Distance Matrix response", e);
         }
-        return 0.0;
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.tev.riderapp.service;
 
 import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.WalletEntryType;
 import com.tev.riderapp.rideshare.repository.PassengerRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -9,25 +10,18 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class PassengerService {
     private final PassengerRepository passengerRepository;
+    private final WalletLedgerService walletLedgerService;
 
     public Double getWalletBalance(Long passengerId) {
-        Passenger passenger = getPassenger(passengerId);
-        return passenger.getWalletBalance();
+        return walletLedgerService.getBalance(passengerId);
     }
 
     public void addToWallet(Long passengerId, double amount) {
-        Passenger passenger = getPassenger(passengerId);
-        passenger.setWalletBalance(passenger.getWalletBalance() + amount);
-        passengerRepository.save(passenger);
+        walletLedgerService.credit(passengerId, WalletLedgerService.toMinorUnits(amount), WalletEntryType.TOP_UP, null);
     }
 
     public void deductFromWallet(Long passengerId, double amount) {
-        Passenger passenger = getPassenger(passengerId);
-        if (passenger.getWalletBalance() < amount) {
-            throw new RuntimeException("Insufficient wallet balance");
-        }
-        passenger.setWalletBalance(passenger.getWalletBalance() - amount);
-        passengerRepository.save(passenger);
+        walletLedgerService.debit(passengerId, WalletLedgerService.toMinorUnits(amount), WalletEntryType.WITHDRAWAL, null);
     }
 
     public Passenger getPassenger(Long passengerId) {
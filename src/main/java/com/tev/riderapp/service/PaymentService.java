@@ -4,10 +4,13 @@ import com.tev.riderapp.model.Payment;
 import com.tev.riderapp.model.PaymentStatus;
 import com.tev.riderapp.model.PaymentType;
 import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.model.WalletEntryType;
 import com.tev.riderapp.rideshare.repository.PaymentRepository;
 import com.tev.riderapp.rideshare.repository.RideRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,31 +21,88 @@ import java.util.UUID;
 public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final RideRepository rideRepository;
+    private final WalletLedgerService walletLedgerService;
 
+    /**
+     * Records the payment as PENDING and returns immediately; PaymentProcessor charges it in the
+     * background. Wallet payments are debited through the ledger here instead and complete at
+     * once, or fail the request if the balance is insufficient. Resubmitting for the same ride
+     * returns the existing payment unless it failed, in which case it is queued again under a new
+     * transaction id. A failed payment is claimed with a conditional update before anything is
+     * charged, so of two concurrent resubmissions only one debits the wallet.
+     */
+    @Transactional
     public Payment processPayment(Long rideId, PaymentType paymentType, String paymentDetails) {
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
+        // The fare is only final once the ride completes, and completing it settles the payment
+        if (ride.getStatus() != Ride.RideStatus.COMPLETED) {
+            throw new RuntimeException("Ride has not been completed");
+        }
 
-        Payment payment = new Payment();
-        payment.setRide(ride);
+        Payment payment = paymentRepository.findByRide(ride);
+        if (payment != null && payment.getStatus() != PaymentStatus.FAILED) {
+            return payment;
+        }
+        if (payment == null) {
+            payment = new Payment();
+            payment.setRide(ride);
+        } else if (paymentRepository.updateStatus(payment.getId(), PaymentStatus.FAILED, PaymentStatus.PENDING) == 0) {
+            throw new RuntimeException("Payment is already being resubmitted");
+        }
+        payment.setTransactionId(UUID.randomUUID().toString());
         payment.setAmount(ride.getFare());
         payment.setPaymentType(paymentType);
-        payment.setStatus(PaymentStatus.PENDING);
         payment.setTimestamp(LocalDateTime.now());
-        payment.setTransactionId(UUID.randomUUID().toString());
-
-        // Simulate payment processing
-        try {
-            // Here you would integrate with actual payment gateway
-            Thread.sleep(1000); // Simulate processing time
+        payment.setAttempts(0);
+        payment.setLastError(null);
+        if (paymentType == PaymentType.WALLET) {
+            walletLedgerService.debit(ride.getPassenger().getId(), WalletLedgerService.toMinorUnits(ride.getFare()),
+                    WalletEntryType.RIDE_PAYMENT, "ride:" + ride.getId());
             payment.setStatus(PaymentStatus.COMPLETED);
-        } catch (InterruptedException e) {
-            payment.setStatus(PaymentStatus.FAILED);
+            payment.setNextAttemptAt(null);
+        } else {
+            payment.setStatus(PaymentStatus.PENDING);
+            payment.setNextAttemptAt(payment.getTimestamp());
         }
+        return paymentRepository.save(payment);
+    }
 
+    /**
+     * Persists the payment for a ride being completed in the caller's transaction. A ride has at
+     * most one payment, so a row left by an earlier submission is reused rather than duplicated.
+     * A PENDING payment is picked up by PaymentProcessor once the transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Payment recordRidePayment(Ride ride, double amount, PaymentType paymentType, PaymentStatus status) {
+        Payment payment = paymentRepository.findByRide(ride);
+        if (payment == null) {
+            payment = new Payment();
+            payment.setRide(ride);
+        }
+        payment.setAmount(amount);
+        payment.setPaymentType(paymentType);
+        payment.setStatus(status);
+        payment.setTimestamp(LocalDateTime.now());
+        payment.setTransactionId(UUID.randomUUID().toString());
+        payment.setAttempts(0);
+        payment.setLastError(null);
+        payment.setNextAttemptAt(status == PaymentStatus.PENDING ? payment.getTimestamp() : null);
         return paymentRepository.save(payment);
     }
 
+    // True when an earlier submission for the ride has already been charged
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean isPaid(Ride ride) {
+        Payment payment = paymentRepository.findByRide(ride);
+        return payment != null && payment.getStatus() == PaymentStatus.COMPLETED;
+    }
+
+    public Payment getPayment(Long paymentId) {
+        return paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+    }
+
     public Payment refundPayment(Long paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
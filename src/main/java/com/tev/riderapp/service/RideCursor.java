@@ -0,0 +1,39 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.model.Ride;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a ride listing: the (requestTime, id) of the last ride on the previous page.
+ */
+@Getter
+@AllArgsConstructor
+public class RideCursor {
+    private final LocalDateTime requestTime;
+    private final Long id;
+
+    public static RideCursor after(Ride ride) {
+        return new RideCursor(ride.getRequestTime(), ride.getId());
+    }
+
+    public String encode() {
+        String raw = requestTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RideCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new RideCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,45 +1,97 @@
 package com.tev.riderapp.service;
 
 import com.tev.riderapp.model.*;
+import com.tev.riderapp.observer.RideEventBus;
 import com.tev.riderapp.observer.RideObserver;
 import com.tev.riderapp.observer.PassengerNotifier;
 import com.tev.riderapp.observer.DriverNotifier;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
 import com.tev.riderapp.rideshare.repository.RideRepository;
+import com.tev.riderapp.service.dispatch.DispatchState;
+import com.tev.riderapp.service.dispatch.DriverLocationIndex;
+import com.tev.riderapp.service.dispatch.DriverLocationStore;
+import com.tev.riderapp.service.dispatch.SurgePricingEngine;
 import com.tev.riderapp.service.fare.FareCalculationStrategy;
+import com.tev.riderapp.service.fare.FareQuote;
+import com.tev.riderapp.service.fare.FareQuoteService;
 import com.tev.riderapp.service.fare.LuxuryFareStrategy;
 import com.tev.riderapp.service.fare.PoolFareStrategy;
 import com.tev.riderapp.service.fare.StandardFareStrategy;
+import com.tev.riderapp.service.outbox.RideOutbox;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Slf4j
 @Service
 public class RideManagementSystem {
-    private List<Driver> availableDrivers = new ArrayList<>();
-    private List<Ride> activeRides = new ArrayList<>();
-    private List<RideObserver> observers = new ArrayList<>();
-    
     @Autowired
     private RideRepository rideRepository;
     
+    @Autowired
+    private DriverRepository driverRepository;
+
     @Autowired
     private GoogleMapsService googleMapsService;
-    
 
-    
-    public RideManagementSystem() {
-        // Initialize collections
-        this.availableDrivers = new ArrayList<>();
-        this.activeRides = new ArrayList<>();
-        this.observers = new ArrayList<>();
-        
+    @Autowired
+    private DistanceService distanceService;
+
+    @Autowired
+    private DriverLocationIndex driverLocationIndex;
+
+    @Autowired
+    private DriverLocationStore driverLocationStore;
+
+    @Autowired
+    private DispatchState dispatchState;
+
+    @Autowired
+    private SurgePricingEngine surgePricingEngine;
+
+    @Autowired
+    private RideEventBus rideEventBus;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private RideOutbox rideOutbox;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private StandardFareStrategy standardFareStrategy;
+
+    @Autowired
+    private PoolFareStrategy poolFareStrategy;
+
+    @Autowired
+    private LuxuryFareStrategy luxuryFareStrategy;
+
+    @Autowired
+    private FareQuoteService fareQuoteService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${rides.page.max-size:100}")
+    private int maxPageSize;
+
+    @PostConstruct
+    public void registerObservers() {
         // Add observers for notifications
         addObserver(new PassengerNotifier());
         addObserver(new DriverNotifier());
@@ -64,194 +116,211 @@ public class RideManagementSystem {
     }
     
     public Ride requestRide(Passenger passenger, Location pickup, Location destination, Ride.RideType rideType, String paymentMethod){
-            Ride ride = new Ride();
-            ride.setPassenger(passenger);
-            ride.setPickupLocation(pickup);
-            ride.setDropoffLocation(destination);
-            ride.setRideType(rideType);
-            ride.setPaymentMethod(paymentMethod);
-            ride.setStatus(Ride.RideStatus.REQUESTED);
-            ride.setRequestTime(LocalDateTime.now());
-
-            // Calculate estimated fare using Google Maps API
-            double distance = googleMapsService.calculateDistance(pickup, destination);
+        return bookRide(priceRide(passenger, pickup, destination, rideType, paymentMethod));
+    }
+
+    // Runs outside any transaction, so the distance lookup holds no connection
+    public Ride priceRide(Passenger passenger, Location pickup, Location destination, Ride.RideType rideType, String paymentMethod){
+            Ride ride = newRide(passenger, pickup, destination, rideType, paymentMethod);
+
+            // Calculate estimated fare using the configured distance provider
+            double distance = distanceService.calculateDistance(pickup, destination);
             ride.setDistance(distance);
-            ride.setSurgeMultiplier(calculateSurgeMultiplier());
+            ride.setSurgeMultiplier(surgePricingEngine.multiplierAt(pickup));
 
             FareCalculationStrategy fareStrategy = getFareStrategy(rideType);
             ride.setFare(fareStrategy.calculateFare(ride));
 
-           Ride rides = rideRepository.save(ride);
-           log.info("Ride Cost: " + rides.getFare());
+            return ride;
+        }
+
+    /**
+     * Books at the quoted distance, surge and fare, so redeeming a quote needs no geocoding or
+     * distance lookups. The quote is redeemed in the booking transaction, so it stays usable if
+     * the booking fails.
+     */
+    public Ride requestRide(Passenger passenger, FareQuote quote, Ride.RideType rideType, String paymentMethod) {
+        if (!quote.getPassengerId().equals(passenger.getId())) {
+            throw new RuntimeException("Quote was issued to another passenger");
+        }
+        Double fare = quote.getFares().get(rideType);
+        if (fare == null) {
+            throw new RuntimeException("Quote has no fare for ride type " + rideType);
+        }
+        Ride ride = newRide(passenger, quote.getPickupLocation(), quote.getDropoffLocation(), rideType, paymentMethod);
+        ride.setDistance(quote.getDistance());
+        ride.setSurgeMultiplier(quote.getSurgeMultiplier());
+        ride.setFare(fare);
+        return transactionTemplate.execute(status -> {
+            fareQuoteService.redeem(quote);
+            return bookRide(ride);
+        });
+    }
+
+    private Ride newRide(Passenger passenger, Location pickup, Location destination, Ride.RideType rideType, String paymentMethod) {
+        Ride ride = new Ride();
+        ride.setPassenger(passenger);
+        ride.setPickupLocation(pickup);
+        ride.setDropoffLocation(destination);
+        ride.setRideType(rideType);
+        ride.setPaymentMethod(paymentMethod);
+        ride.setStatus(Ride.RideStatus.REQUESTED);
+        ride.setRequestTime(LocalDateTime.now());
+        return ride;
+    }
+
+    // The transaction covers only the insert and its outbox row
+    public Ride bookRide(Ride ride) {
+        return transactionTemplate.execute(status -> {
+            Ride rides = rideRepository.save(ride);
+            log.info("Ride Cost: " + rides.getFare());
 
-            activeRides.add(rides);
+            // A booking that rolls back is not demand
+            afterCommit(() -> surgePricingEngine.recordRequest(rides.getPickupLocation()));
+            afterCommit(() -> dispatchState.addActiveRide(rides.getId()));
             notifyObservers(rides);
             return ride;
-        }
+        });
+    }
 
     public void addObserver(RideObserver observer) {
-        observers.add(observer);
+        rideEventBus.subscribe(observer);
     }
 
     public void removeObserver(RideObserver observer) {
-        observers.remove(observer);
+        rideEventBus.unsubscribe(observer);
     }
 
 
         public void startRide(Ride ride) {
+            requireTransition(ride, Ride.RideStatus.PICKED_UP);
             ride.setStatus(Ride.RideStatus.PICKED_UP);
             ride.setPickupTime(LocalDateTime.now());
             rideRepository.save(ride);
         }
 
+        /**
+         * Completes the ride in the caller's transaction. The wallet debit is a conditional UPDATE
+         * issued up front, before anything else is dirty, so its automatic flush writes nothing;
+         * the ride, payment, ledger entry, driver and outbox rows then go out together in one
+         * batched flush at commit.
+         */
         public void completeRide (Ride ride){
-            ride.setStatus(Ride.RideStatus.COMPLETED);
-            ride.setDropoffTime(LocalDateTime.now());
+            requireTransition(ride, Ride.RideStatus.COMPLETED);
 
             // Calculate final fare
             FareCalculationStrategy fareStrategy = getFareStrategy(ride.getRideType());
-            ride.setFare(fareStrategy.calculateFare(ride));
+            double fare = fareStrategy.calculateFare(ride);
 
             // Process payment - transfer from passenger to driver wallet
-            processPayment(ride);
+            processPayment(ride, fare);
+
+            ride.setStatus(Ride.RideStatus.COMPLETED);
+            ride.setDropoffTime(LocalDateTime.now());
+            ride.setFare(fare);
             
             // Make driver available again
             Driver driver = ride.getDriver();
             if (driver != null) {
+                driver.setEarnings(driver.getEarnings() + fare);
                 driver.setAvailable(true);
-                availableDrivers.add(driver);
+                afterCommit(() -> reindex(driver));
             }
             
             // Save the completed ride
             rideRepository.save(ride);
             
-            activeRides.remove(ride);
+            afterCommit(() -> dispatchState.removeActiveRide(ride.getId()));
         }
         
-        private void processPayment(Ride ride) {
-            Passenger passenger = ride.getPassenger();
-            Driver driver = ride.getDriver();
-            double fare = ride.getFare();
-            String paymentMethod = ride.getPaymentMethod();
-            
-            if ("WALLET".equals(paymentMethod)) {
-                // Check if passenger has sufficient balance
-                if (passenger.getWalletBalance() < fare) {
-                    throw new RuntimeException("Insufficient wallet balance");
-                }
-                
-                // Deduct from passenger wallet
-                passenger.setWalletBalance(passenger.getWalletBalance() - fare);
-
-                // Create payment record
-                Payment payment = new Payment();
-                payment.setRide(ride);
-                payment.setAmount(fare);
-                payment.setPaymentType(PaymentType.WALLET);
-                payment.setStatus(PaymentStatus.COMPLETED);
-                payment.setTimestamp(LocalDateTime.now());
-                
-                System.out.println("Wallet payment processed: £" + String.format("%.2f", fare));
-            } else {
-                // Credit card payment - will be processed via Stripe on frontend
-                // For now, assume payment is successful (actual verification happens on frontend)
-                Payment payment = new Payment();
-                payment.setRide(ride);
-                payment.setAmount(fare);
-                payment.setPaymentType(PaymentType.CREDIT_CARD);
-                payment.setStatus(PaymentStatus.COMPLETED);
-                payment.setTimestamp(LocalDateTime.now());
-                
-                System.out.println("Credit card payment processed: £" + String.format("%.2f", fare));
+        private void processPayment(Ride ride, double fare) {
+            // Submitted and charged through /api/payments before completion was required
+            if (paymentService.isPaid(ride)) {
+                return;
             }
-            if (driver != null) {
-                driver.setEarnings(driver.getEarnings() + fare);
+            if ("WALLET".equals(ride.getPaymentMethod())) {
+                // Deduct from passenger wallet; fails if the balance is insufficient
+                walletLedgerService.debit(ride.getPassenger().getId(), WalletLedgerService.toMinorUnits(fare),
+                        WalletEntryType.RIDE_PAYMENT, "ride:" + ride.getId());
+                paymentService.recordRidePayment(ride, fare, PaymentType.WALLET, PaymentStatus.COMPLETED);
+                log.info("Wallet payment processed: £{}", String.format("%.2f", fare));
+            } else {
+                // Card payments are charged by the payment processor once the ride has committed
+                paymentService.recordRidePayment(ride, fare, PaymentType.CREDIT_CARD, PaymentStatus.PENDING);
             }
         }
 
-        private double calculateDistance (Location pickup, Location destination){
-            // Simple distance calculation using Haversine formula
-            final int R = 6371; // Earth's radius in kilometers
-
-            double lat1 = Math.toRadians(pickup.getLatitude());
-            double lon1 = Math.toRadians(pickup.getLongitude());
-            double lat2 = Math.toRadians(destination.getLatitude());
-            double lon2 = Math.toRadians(destination.getLongitude());
-
-            double dlon = lon2 - lon1;
-            double dlat = lat2 - lat1;
-
-            double a = Math.pow(Math.sin(dlat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(dlon / 2), 2);
-            double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-            return R * c;
-        }
-
-        private double calculateSurgeMultiplier () {
-            // Simple surge pricing based on number of active rides
-            if (activeRides.size() > 10) return 2.0;
-            if (activeRides.size() > 5) return 1.5;
-            return 1.0;
+        public void addDriver (Driver driver){
+            driverLocationIndex.update(driver);
         }
 
-        private Optional<Driver> findNearestDriver (Location pickup){
-            return availableDrivers.stream()
-                    .min((d1, d2) -> {
-                        Location driverLoc1 = new Location();
-                        driverLoc1.setLatitude(d1.getCurrentLocation().getLatitude());
-                        driverLoc1.setLongitude(d1.getCurrentLocation().getLongitude());
-                        
-                        Location driverLoc2 = new Location();
-                        driverLoc2.setLatitude(d2.getCurrentLocation().getLatitude());
-                        driverLoc2.setLongitude(d2.getCurrentLocation().getLongitude());
-                        
-                        double dist1 = calculateDistance(driverLoc1, pickup);
-                        double dist2 = calculateDistance(driverLoc2, pickup);
-                        return Double.compare(dist1, dist2);
-                    });
+        public void removeDriver (Driver driver){
+            driverLocationIndex.remove(driver.getId());
         }
 
-        public void addDriver (Driver driver){
-            if (driver.isAvailable()) {
-                availableDrivers.add(driver);
+        public RidePage getActiveRides (String cursor, int size) {
+            // Return REQUESTED rides from database, not just in-memory list
+            int limit = clampPageSize(size);
+            List<Ride> rides;
+            if (cursor == null) {
+                rides = rideRepository.findByStatus(Ride.RideStatus.REQUESTED, Limit.of(limit + 1));
+            } else {
+                RideCursor position = RideCursor.decode(cursor);
+                rides = rideRepository.findByStatusBefore(Ride.RideStatus.REQUESTED, position.getRequestTime(), position.getId(), Limit.of(limit + 1));
             }
+            return toPage(rides, limit);
         }
 
-        public void removeDriver (Driver driver){
-            availableDrivers.remove(driver);
-        }
 
-        public List<Ride> getActiveRides () {
-            // Return all REQUESTED rides from database, not just in-memory list
-            return rideRepository.findByStatus(Ride.RideStatus.REQUESTED);
+    // Cheap in-memory rejection of illegal moves; the @Version check on flush catches concurrent ones
+    private void requireTransition(Ride ride, Ride.RideStatus next) {
+        if (!ride.getStatus().canTransitionTo(next)) {
+            throw new RuntimeException("Cannot move ride from " + ride.getStatus() + " to " + next);
         }
+    }
 
-
+    // Observers are notified by the outbox relay once the change has committed
     private void notifyObservers(Ride ride) {
-        for (RideObserver observer : observers) {
-            observer.update(ride);
+        rideOutbox.record(OutboxEventType.RIDE_UPDATED, ride.getId());
+    }
+
+    // Back into the index at the latest ping, which may not have been flushed to the row loaded here
+    private void reindex(Driver driver) {
+        driverLocationIndex.update(driverLocationStore.withLatestLocation(driver));
+    }
+
+    // In-memory dispatch state must not run ahead of the database if the transaction rolls back
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
+    @Transactional
     public void acceptRide(Long rideId, Long driverId) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-        
-        // Check if ride is still available
-        if (ride.getStatus() != Ride.RideStatus.REQUESTED) {
+        // One conditional UPDATE, no read first: when drivers race for a ride only one matches REQUESTED
+        int updated = rideRepository.assignDriver(rideId, Ride.RideStatus.REQUESTED, Ride.RideStatus.ACCEPTED,
+                driverRepository.getReferenceById(driverId));
+        if (updated == 0) {
+            if (!rideRepository.existsById(rideId)) {
+                throw new RuntimeException("Ride not found");
+            }
             throw new RuntimeException("Ride is no longer available");
         }
-        
-        // Assign driver to ride
-        Driver driver = new Driver();
-        driver.setId(driverId);
-        ride.setDriver(driver);
-        ride.setStatus(Ride.RideStatus.ACCEPTED);
-        
-        rideRepository.save(ride);
-        notifyObservers(ride);
+        // Persisted, so a restart's warm start does not put a driver on a ride back into the index
+        driverRepository.markUnavailable(driverId);
+        afterCommit(() -> driverLocationIndex.remove(driverId));
+        rideOutbox.record(OutboxEventType.RIDE_UPDATED, rideId);
     }
 
+    @Transactional
     public void startRide(Long rideId) {
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
@@ -259,6 +328,7 @@ public class RideManagementSystem {
         notifyObservers(ride);
     }
 
+    @Transactional
     public void completeRide(Long rideId) {
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
@@ -266,18 +336,23 @@ public class RideManagementSystem {
         notifyObservers(ride);
     }
 
+    @Transactional
     public void cancelRide(Long rideId) {
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
+        requireTransition(ride, Ride.RideStatus.CANCELLED);
         ride.setStatus(Ride.RideStatus.CANCELLED);
-        if (ride.getDriver() != null) {
-            ride.getDriver().setAvailable(true);
+        Driver driver = ride.getDriver();
+        if (driver != null) {
+            driver.setAvailable(true);
+            afterCommit(() -> reindex(driver));
         }
         rideRepository.save(ride);
-        activeRides.remove(ride);
+        afterCommit(() -> dispatchState.removeActiveRide(ride.getId()));
         notifyObservers(ride);
     }
     
+    @Transactional
     public void cancelRideByPassenger(Long rideId, Long passengerId) {
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
@@ -296,13 +371,14 @@ public class RideManagementSystem {
         ride.setStatus(Ride.RideStatus.CANCELLED);
         
         // Make driver available again if assigned
-        if (ride.getDriver() != null) {
-            ride.getDriver().setAvailable(true);
-            availableDrivers.add(ride.getDriver());
+        Driver driver = ride.getDriver();
+        if (driver != null) {
+            driver.setAvailable(true);
+            afterCommit(() -> reindex(driver));
         }
         
         rideRepository.save(ride);
-        activeRides.remove(ride);
+        afterCommit(() -> dispatchState.removeActiveRide(ride.getId()));
         notifyObservers(ride);
     }
 
@@ -311,20 +387,45 @@ public class RideManagementSystem {
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
     }
 
-    public List<Ride> getPassengerRides(Long passengerId) {
-        // In a real implementation, you'd get passenger from repository
-        Passenger passenger = new Passenger();
-        passenger.setId(passengerId);
-        return rideRepository.findByPassenger(passenger);
+    public RidePage getPassengerRides(Long passengerId, String cursor, int size) {
+        int limit = clampPageSize(size);
+        List<Ride> rides;
+        if (cursor == null) {
+            rides = rideRepository.findPassengerRides(passengerId, Limit.of(limit + 1));
+        } else {
+            RideCursor position = RideCursor.decode(cursor);
+            rides = rideRepository.findPassengerRidesBefore(passengerId, position.getRequestTime(), position.getId(), Limit.of(limit + 1));
+        }
+        return toPage(rides, limit);
+    }
+
+    public RidePage getDriverRides(Long driverId, String cursor, int size) {
+        int limit = clampPageSize(size);
+        List<Ride> rides;
+        if (cursor == null) {
+            rides = rideRepository.findDriverRides(driverId, Limit.of(limit + 1));
+        } else {
+            RideCursor position = RideCursor.decode(cursor);
+            rides = rideRepository.findDriverRidesBefore(driverId, position.getRequestTime(), position.getId(), Limit.of(limit + 1));
+        }
+        return toPage(rides, limit);
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
     }
 
-    public List<Ride> getDriverRides(Long driverId) {
-        // In a real implementation, you'd get driver from repository
-        Driver driver = new Driver();
-        driver.setId(driverId);
-        return rideRepository.findByDriver(driver);
+    // One extra row is fetched to tell whether another page exists
+    private RidePage toPage(List<Ride> rides, int limit) {
+        if (rides.size() <= limit) {
+            return new RidePage(rides, null);
+        }
+        List<Ride> page = rides.subList(0, limit);
+        return new RidePage(page, RideCursor.after(page.get(limit - 1)).encode());
     }
 
+    // The driver is changed through the ride, so both must be managed in the same transaction
+    @Transactional
     public void rateRide(Long rideId, int rating) {
         Ride ride = getRide(rideId);
         ride.setRating(rating);
@@ -352,11 +453,11 @@ public class RideManagementSystem {
     public FareCalculationStrategy getFareStrategy(Ride.RideType rideType) {
         switch (rideType) {
             case LUXURY:
-                return new LuxuryFareStrategy();
+                return luxuryFareStrategy;
             case POOL:
-                return new PoolFareStrategy();
+                return poolFareStrategy;
             default:
-                return new StandardFareStrategy();
+                return standardFareStrategy;
         }
     }
 }
\ No newline at end of file
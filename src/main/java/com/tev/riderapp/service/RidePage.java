@@ -0,0 +1,15 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.model.Ride;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class RidePage {
+    private final List<Ride> rides;
+    // Null when there are no more rides
+    private final String nextCursor;
+}
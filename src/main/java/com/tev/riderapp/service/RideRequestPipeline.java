@@ -0,0 +1,100 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.dto.RideRequestDto;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.service.fare.FareQuote;
+import com.tev.riderapp.service.fare.FareQuoteService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the independent lookups of a ride request (passenger, pickup and dropoff geocodes)
+ * concurrently, so the request costs roughly the slowest lookup instead of their sum. A request
+ * carrying a valid quote id skips the geocodes and books at the quoted price.
+ *
+ * Timeouts only cover lookups and pricing. Booking is a short transaction that is never
+ * abandoned part way, so a request that times out has not created a ride.
+ */
+@Service
+public class RideRequestPipeline {
+    private final RideManagementSystem rideService;
+    private final UserService userService;
+    private final GoogleMapsService googleMapsService;
+    private final FareQuoteService fareQuoteService;
+    private final Executor executor;
+
+    @Value("${ride.request.lookup-timeout-ms:2000}")
+    private long lookupTimeoutMs;
+
+    @Value("${ride.request.geocode-timeout-ms:4000}")
+    private long geocodeTimeoutMs;
+
+    @Value("${ride.request.pricing-timeout-ms:8000}")
+    private long pricingTimeoutMs;
+
+    public RideRequestPipeline(RideManagementSystem rideService, UserService userService,
+                               GoogleMapsService googleMapsService, FareQuoteService fareQuoteService,
+                               @Qualifier("rideRequestExecutor") Executor executor) {
+        this.rideService = rideService;
+        this.userService = userService;
+        this.googleMapsService = googleMapsService;
+        this.fareQuoteService = fareQuoteService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Ride> requestRide(RideRequestDto request) {
+        CompletableFuture<Passenger> passenger = CompletableFuture
+                .supplyAsync(() -> userService.getPassenger(request.getPassengerId()), executor)
+                .orTimeout(lookupTimeoutMs, TimeUnit.MILLISECONDS);
+
+        // An unknown or expired quote falls through to pricing the request from its postcodes
+        Optional<FareQuote> quote = fareQuoteService.find(request.getQuoteId());
+        if (quote.isPresent()) {
+            fareQuoteService.checkTrip(quote.get(), request.getPickupPostcode(), request.getDropoffPostcode());
+            return passenger
+                    .thenApplyAsync(found -> rideService.requestRide(
+                            found,
+                            quote.get(),
+                            request.getRideType(),
+                            request.getPaymentMethod()
+                    ), executor);
+        }
+
+        CompletableFuture<Location> pickup = geocode(request.getPickupPostcode(), request.getPickupAddress());
+        CompletableFuture<Location> dropoff = geocode(request.getDropoffPostcode(), request.getDropoffAddress());
+
+        return CompletableFuture.allOf(passenger, pickup, dropoff)
+                .thenApplyAsync(ignored -> rideService.priceRide(
+                        passenger.join(),
+                        pickup.join(),
+                        dropoff.join(),
+                        request.getRideType(),
+                        request.getPaymentMethod()
+                ), executor)
+                .orTimeout(pricingTimeoutMs, TimeUnit.MILLISECONDS)
+                .thenApplyAsync(rideService::bookRide, executor);
+    }
+
+    private CompletableFuture<Location> geocode(String postcode, String address) {
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    Location location = googleMapsService.geocodePostcode(postcode);
+                    if (location == null) {
+                        throw new RuntimeException("Could not find location for postcode: " + postcode);
+                    }
+                    if (address != null && !address.isEmpty()) {
+                        location.setAddress(address);
+                    }
+                    return location;
+                }, executor)
+                .orTimeout(geocodeTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+}
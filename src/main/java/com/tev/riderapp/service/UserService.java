@@ -2,10 +2,15 @@ package com.tev.riderapp.service;
 import com.tev.riderapp.model.Driver;
 import com.tev.riderapp.model.Location;
 import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.WalletEntryType;
 import com.tev.riderapp.rideshare.repository.DriverRepository;
 import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import com.tev.riderapp.service.dispatch.DriverLocationIndex;
+import com.tev.riderapp.service.dispatch.DriverLocationStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,12 +19,25 @@ import java.util.List;
 public class UserService {
     private final PassengerRepository passengerRepository;
     private final DriverRepository driverRepository;
+    private final DriverLocationIndex driverLocationIndex;
+    private final DriverLocationStore driverLocationStore;
+    private final WalletLedgerService walletLedgerService;
 
+    // One transaction, so a passenger is never left registered without their opening balance
+    @Transactional
     public Passenger registerPassenger(Passenger passenger) {
         if (passengerRepository.findByEmail(passenger.getEmail()) != null) {
             throw new RuntimeException("Email already registered");
         }
-        return passengerRepository.save(passenger);
+        // The opening balance goes through the ledger like any other top-up
+        long openingBalance = passenger.getWalletBalanceMinor();
+        passenger.setWalletBalanceMinor(0);
+        Passenger saved = save(passenger);
+        if (openingBalance > 0) {
+            walletLedgerService.credit(saved.getId(), openingBalance, WalletEntryType.TOP_UP, "registration");
+            saved.setWalletBalanceMinor(openingBalance);
+        }
+        return saved;
     }
 
     public Driver registerDriver(Driver driver) {
@@ -30,7 +48,27 @@ public class UserService {
         driver.setAvailable(true);
         driver.setRating(0.0);
         driver.setEarnings(0.0);
-        return driverRepository.save(driver);
+        Driver saved = save(driver);
+        driverLocationIndex.update(saved);
+        return saved;
+    }
+
+    // The email checks above are only a fast path; the unique indexes settle concurrent sign-ups
+    private Passenger save(Passenger passenger) {
+        try {
+            // Flushed here so a duplicate fails inside the catch rather than at commit
+            return passengerRepository.saveAndFlush(passenger);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Email already registered");
+        }
+    }
+
+    private Driver save(Driver driver) {
+        try {
+            return driverRepository.save(driver);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Email already registered");
+        }
     }
 
     public Passenger loginPassenger(String email, String password) {
@@ -60,15 +98,14 @@ public class UserService {
     }
 
     public void updateDriverLocation(Long driverId, Location location) {
-        Driver driver = getDriver(driverId);
-        driver.setCurrentLocation(location);
-        driverRepository.save(driver);
+        driverLocationStore.record(driverId, location);
     }
 
     public void updateDriverAvailability(Long driverId, boolean available) {
-        Driver driver = getDriver(driverId);
+        Driver driver = driverLocationStore.withLatestLocation(getDriver(driverId));
         driver.setAvailable(available);
         driverRepository.save(driver);
+        driverLocationIndex.update(driver);
     }
 
     public List<Driver> getAvailableDrivers() {
@@ -122,21 +159,14 @@ public class UserService {
     }
     
     public void fundWallet(Long passengerId, double amount) {
-        Passenger passenger = passengerRepository.findById(passengerId)
-                .orElseThrow(() -> new RuntimeException("Passenger not found"));
-        
         if (amount <= 0) {
             throw new RuntimeException("Amount must be greater than 0");
         }
-        
-        passenger.setWalletBalance(passenger.getWalletBalance() + amount);
-        passengerRepository.save(passenger);
+        walletLedgerService.credit(passengerId, WalletLedgerService.toMinorUnits(amount), WalletEntryType.TOP_UP, null);
     }
     
     public double getWalletBalance(Long passengerId) {
-        Passenger passenger = passengerRepository.findById(passengerId)
-                .orElseThrow(() -> new RuntimeException("Passenger not found"));
-        return passenger.getWalletBalance();
+        return walletLedgerService.getBalance(passengerId);
     }
     
     public double getDriverEarnings(Long driverId) {
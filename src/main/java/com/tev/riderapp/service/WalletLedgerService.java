@@ -0,0 +1,74 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.model.WalletEntry;
+import com.tev.riderapp.model.WalletEntryType;
+import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import com.tev.riderapp.rideshare.repository.WalletEntryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * The only writer of wallet balances. Each change is an atomic conditional UPDATE on the
+ * passenger row plus an append-only ledger entry in the same transaction, all in pence.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletLedgerService {
+    private final PassengerRepository passengerRepository;
+    private final WalletEntryRepository walletEntryRepository;
+
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static double toMajorUnits(long amountMinor) {
+        return amountMinor / 100.0;
+    }
+
+    @Transactional
+    public void credit(Long passengerId, long amountMinor, WalletEntryType type, String reference) {
+        if (amountMinor <= 0) {
+            throw new RuntimeException("Amount must be greater than 0");
+        }
+        if (passengerRepository.creditWallet(passengerId, amountMinor) == 0) {
+            throw new RuntimeException("Passenger not found");
+        }
+        record(passengerId, amountMinor, type, reference);
+    }
+
+    @Transactional
+    public void debit(Long passengerId, long amountMinor, WalletEntryType type, String reference) {
+        if (amountMinor <= 0) {
+            throw new RuntimeException("Amount must be greater than 0");
+        }
+        if (passengerRepository.debitWallet(passengerId, amountMinor) == 0) {
+            if (!passengerRepository.existsById(passengerId)) {
+                throw new RuntimeException("Passenger not found");
+            }
+            throw new RuntimeException("Insufficient wallet balance");
+        }
+        record(passengerId, -amountMinor, type, reference);
+    }
+
+    public long getBalanceMinor(Long passengerId) {
+        return passengerRepository.findWalletBalanceMinor(passengerId)
+                .orElseThrow(() -> new RuntimeException("Passenger not found"));
+    }
+
+    public double getBalance(Long passengerId) {
+        return toMajorUnits(getBalanceMinor(passengerId));
+    }
+
+    private void record(Long passengerId, long amountMinor, WalletEntryType type, String reference) {
+        WalletEntry entry = new WalletEntry();
+        entry.setPassengerId(passengerId);
+        entry.setAmountMinor(amountMinor);
+        entry.setEntryType(type);
+        entry.setReference(reference);
+        entry.setCreatedAt(LocalDateTime.now());
+        walletEntryRepository.save(entry);
+    }
+}
@@ -0,0 +1,109 @@
+package com.tev.riderapp.service.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost bipartite assignment (Hungarian algorithm with potentials, O(n^2 m) for n rows
+ * and m columns). Pairs that must not be matched should be given {@link #UNREACHABLE}; rows left
+ * with only such pairs come back unassigned.
+ */
+public final class AssignmentSolver {
+    public static final double UNREACHABLE = 1e9;
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * Returns, for each row, the column assigned to it or -1. Every row gets a column when there
+     * are at least as many columns as rows and no unreachable pair is needed.
+     */
+    public static int[] solve(double[][] cost) {
+        int n = cost.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        int m = cost[0].length;
+        if (n > m) {
+            return invert(solve(transpose(cost)), n);
+        }
+
+        // Arrays are 1-based with index 0 as the sentinel column the augmenting path starts from
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] rowOfColumn = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            rowOfColumn[0] = i;
+            int column = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int row = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double slack = cost[row - 1][j - 1] - u[row] - v[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = column;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        next = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOfColumn[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (rowOfColumn[column] != 0);
+            do {
+                int previous = way[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        for (int j = 1; j <= m; j++) {
+            int row = rowOfColumn[j];
+            if (row != 0 && cost[row - 1][j - 1] < UNREACHABLE) {
+                assignment[row - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+
+    private static double[][] transpose(double[][] cost) {
+        double[][] transposed = new double[cost[0].length][cost.length];
+        for (int i = 0; i < cost.length; i++) {
+            for (int j = 0; j < cost[i].length; j++) {
+                transposed[j][i] = cost[i][j];
+            }
+        }
+        return transposed;
+    }
+
+    private static int[] invert(int[] columnAssignment, int rows) {
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        for (int column = 0; column < columnAssignment.length; column++) {
+            if (columnAssignment[column] >= 0) {
+                assignment[columnAssignment[column]] = column;
+            }
+        }
+        return assignment;
+    }
+}
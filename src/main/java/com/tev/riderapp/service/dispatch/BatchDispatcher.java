@@ -0,0 +1,264 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.observer.RideStreamNotifier;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import com.tev.riderapp.service.DistanceService;
+import com.tev.riderapp.service.maps.RouteEstimate;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Periodically matches open ride requests to available drivers as a whole rather than one request
+ * at a time, minimising total pickup time, and pushes each driver a targeted offer. Each ride
+ * only considers its nearest few drivers, which splits the city into independent groups that are
+ * solved separately, so solve time follows the size of the busiest area rather than of the fleet.
+ * Where demand is dense the shortlists chain together into one large group; such a group is cut
+ * into strips of nearby pickups, solved one after another, each strip only offered the drivers
+ * earlier strips left free.
+ * Pickup times for a ride's shortlist come from one batched route estimate, so a driver who is
+ * close in a straight line but far by road does not beat one who can get there sooner. Offers are
+ * advisory: the driver still claims the ride through acceptRide.
+ */
+@Slf4j
+@Component
+public class BatchDispatcher {
+    private final RideRepository rideRepository;
+    private final DriverLocationIndex driverLocationIndex;
+    private final RideStreamNotifier rideStreamNotifier;
+    private final DistanceService distanceService;
+    private final Timer solveTimer;
+    private final DistributionSummary pickupDistance;
+
+    @Value("${dispatch.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dispatch.batch.max-rides:1000}")
+    private int maxRides;
+
+    @Value("${dispatch.batch.candidates-per-ride:8}")
+    private int candidatesPerRide;
+
+    @Value("${dispatch.batch.max-pickup-km:10}")
+    private double maxPickupKm;
+
+    // Largest group solved in one piece; the solver is cubic, so this bounds the round's worst case
+    @Value("${dispatch.batch.max-group-rides:250}")
+    private int maxGroupRides;
+
+    @Value("${dispatch.batch.offer-ttl-ms:15000}")
+    private long offerTtlMs;
+
+    // Ride id -> outstanding offer; the offered driver is held back from other rides until it expires.
+    // Only touched by the scheduled round, which never overlaps itself.
+    private final Map<Long, Offer> offers = new HashMap<>();
+
+    public BatchDispatcher(RideRepository rideRepository, DriverLocationIndex driverLocationIndex,
+                           RideStreamNotifier rideStreamNotifier, DistanceService distanceService,
+                           MeterRegistry meterRegistry) {
+        this.rideRepository = rideRepository;
+        this.driverLocationIndex = driverLocationIndex;
+        this.rideStreamNotifier = rideStreamNotifier;
+        this.distanceService = distanceService;
+        this.solveTimer = meterRegistry.timer("dispatch.batch.solve");
+        this.pickupDistance = meterRegistry.summary("dispatch.batch.pickup.km");
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.batch.interval-ms:500}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        offers.values().removeIf(offer -> offer.expiresAtMillis <= now);
+        Set<Long> heldDrivers = new HashSet<>();
+        offers.values().forEach(offer -> heldDrivers.add(offer.driverId));
+
+        List<Ride> rides = new ArrayList<>();
+        for (Ride ride : rideRepository.findOldestByStatus(Ride.RideStatus.REQUESTED, Limit.of(maxRides))) {
+            if (ride.getPickupLocation() != null && !offers.containsKey(ride.getId())) {
+                rides.add(ride);
+            }
+        }
+        if (rides.isEmpty()) {
+            return;
+        }
+
+        List<Match> matches = solveTimer.record(() -> match(rides, heldDrivers));
+        for (Match match : matches) {
+            if (rideStreamNotifier.offerRide(match.driver.getId(), match.ride)) {
+                offers.put(match.ride.getId(), new Offer(match.driver.getId(), now + offerTtlMs));
+                pickupDistance.record(match.distanceKm);
+            }
+        }
+        log.debug("Batch dispatch offered {} of {} open rides", matches.size(), rides.size());
+    }
+
+    private List<Match> match(List<Ride> rides, Set<Long> heldDrivers) {
+        int rideCount = rides.size();
+        List<Driver> drivers = new ArrayList<>();
+        Map<Long, Integer> driverColumns = new HashMap<>();
+        List<int[]> candidateColumns = new ArrayList<>(rideCount);
+        List<double[]> candidateSeconds = new ArrayList<>(rideCount);
+        List<double[]> candidateKm = new ArrayList<>(rideCount);
+
+        for (Ride ride : rides) {
+            Location pickup = ride.getPickupLocation();
+            // Filtered inside the search, so held or offline drivers nearby do not crowd out reachable ones
+            List<Driver> nearest = driverLocationIndex.findNearest(pickup.getLatitude(), pickup.getLongitude(),
+                    candidatesPerRide, maxPickupKm,
+                    driver -> !heldDrivers.contains(driver.getId()) && rideStreamNotifier.hasOfferStream(driver.getId()));
+            List<RouteEstimate> estimates = nearest.isEmpty() ? List.of()
+                    : distanceService.estimateFromOrigins(nearest.stream().map(Driver::getCurrentLocation).toList(), pickup);
+            int[] columns = new int[nearest.size()];
+            double[] seconds = new double[nearest.size()];
+            double[] km = new double[nearest.size()];
+            int count = 0;
+            for (int n = 0; n < nearest.size(); n++) {
+                Driver driver = nearest.get(n);
+                Integer column = driverColumns.get(driver.getId());
+                if (column == null) {
+                    column = drivers.size();
+                    driverColumns.put(driver.getId(), column);
+                    drivers.add(driver);
+                }
+                columns[count] = column;
+                seconds[count] = estimates.get(n).getDurationSeconds();
+                km[count] = estimates.get(n).getDistanceKm();
+                count++;
+            }
+            candidateColumns.add(Arrays.copyOf(columns, count));
+            candidateSeconds.add(Arrays.copyOf(seconds, count));
+            candidateKm.add(Arrays.copyOf(km, count));
+        }
+
+        // Rides that share a candidate driver must be solved together; everything else is independent
+        int[] parent = new int[rideCount + drivers.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < rideCount; i++) {
+            for (int column : candidateColumns.get(i)) {
+                union(parent, i, rideCount + column);
+            }
+        }
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < rideCount; i++) {
+            if (candidateColumns.get(i).length > 0) {
+                groups.computeIfAbsent(find(parent, i), key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        boolean[] taken = new boolean[drivers.size()];
+        for (List<Integer> group : groups.values()) {
+            if (group.size() <= maxGroupRides) {
+                solve(group, rides, drivers, candidateColumns, candidateSeconds, candidateKm, taken, matches);
+                continue;
+            }
+            // Strips of pickups roughly 5km tall, west to east within each
+            group.sort(Comparator.comparingDouble((Integer i) -> Math.floor(rides.get(i).getPickupLocation().getLatitude() / 0.05))
+                    .thenComparingDouble(i -> rides.get(i).getPickupLocation().getLongitude()));
+            for (int from = 0; from < group.size(); from += maxGroupRides) {
+                solve(group.subList(from, Math.min(group.size(), from + maxGroupRides)), rides, drivers,
+                        candidateColumns, candidateSeconds, candidateKm, taken, matches);
+            }
+        }
+        return matches;
+    }
+
+    // Solves one group of rides over the drivers they shortlisted that are not yet taken
+    private static void solve(List<Integer> group, List<Ride> rides, List<Driver> drivers, List<int[]> candidateColumns,
+                              List<double[]> candidateSeconds, List<double[]> candidateKm, boolean[] taken,
+                              List<Match> matches) {
+        Map<Integer, Integer> localColumns = new HashMap<>();
+        for (int i : group) {
+            for (int column : candidateColumns.get(i)) {
+                if (!taken[column]) {
+                    localColumns.putIfAbsent(column, localColumns.size());
+                }
+            }
+        }
+        if (localColumns.isEmpty()) {
+            return;
+        }
+        int[] globalColumns = new int[localColumns.size()];
+        localColumns.forEach((global, local) -> globalColumns[local] = global);
+
+        double[][] cost = new double[group.size()][localColumns.size()];
+        double[][] pickupKm = new double[group.size()][localColumns.size()];
+        for (int row = 0; row < group.size(); row++) {
+            Arrays.fill(cost[row], AssignmentSolver.UNREACHABLE);
+            int ride = group.get(row);
+            int[] columns = candidateColumns.get(ride);
+            double[] seconds = candidateSeconds.get(ride);
+            double[] km = candidateKm.get(ride);
+            for (int c = 0; c < columns.length; c++) {
+                Integer local = localColumns.get(columns[c]);
+                if (local != null) {
+                    cost[row][local] = seconds[c];
+                    pickupKm[row][local] = km[c];
+                }
+            }
+        }
+        int[] assignment = AssignmentSolver.solve(cost);
+        for (int row = 0; row < assignment.length; row++) {
+            if (assignment[row] >= 0) {
+                int column = globalColumns[assignment[row]];
+                taken[column] = true;
+                matches.add(new Match(rides.get(group.get(row)), drivers.get(column), pickupKm[row][assignment[row]]));
+            }
+        }
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    private static final class Match {
+        private final Ride ride;
+        private final Driver driver;
+        private final double distanceKm;
+
+        private Match(Ride ride, Driver driver, double distanceKm) {
+            this.ride = ride;
+            this.driver = driver;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    private static final class Offer {
+        private final Long driverId;
+        private final long expiresAtMillis;
+
+        private Offer(Long driverId, long expiresAtMillis) {
+            this.driverId = driverId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
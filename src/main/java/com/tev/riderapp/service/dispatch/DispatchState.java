@@ -0,0 +1,80 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.service.dispatch.cluster.DispatchEvent;
+import com.tev.riderapp.service.dispatch.cluster.DispatchStateBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster-wide set of rides that are still in progress, kept by id only. Changes on one node are
+ * mirrored to the others through the {@link DispatchStateBackend}, and the count is exported as
+ * the dispatch.rides.active gauge.
+ */
+@Component
+public class DispatchState {
+    private final Set<Long> activeRides = ConcurrentHashMap.newKeySet();
+    private final DispatchStateBackend backend;
+
+    public DispatchState(DispatchStateBackend backend, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        backend.subscribe(this::onRemoteEvent);
+        meterRegistry.gauge("dispatch.rides.active", this, DispatchState::getActiveRideCount);
+    }
+
+    public void addActiveRide(Long rideId) {
+        if (rideId == null) {
+            throw new IllegalArgumentException("Ride must be persisted before it can be tracked");
+        }
+        if (activeRides.add(rideId)) {
+            backend.publish(DispatchEvent.rideActive(rideId));
+        }
+    }
+
+    // Tracks a ride read back from the database; every node does the same, so nothing is published
+    public void restoreActiveRide(Long rideId) {
+        activeRides.add(rideId);
+    }
+
+    public void removeActiveRide(Long rideId) {
+        if (rideId == null) {
+            return;
+        }
+        activeRides.remove(rideId);
+        // Rides can finish on a different node from the one that took the request
+        backend.publish(DispatchEvent.rideInactive(rideId));
+    }
+
+    public Set<Long> getActiveRideIds() {
+        return new HashSet<>(activeRides);
+    }
+
+    /**
+     * Brings the set in line with the rides read from the database. Only rides tracked before the
+     * read started are dropped, since a finished ride never becomes active again; rides added
+     * during the read are kept.
+     */
+    public void reconcile(Set<Long> trackedBefore, Collection<Long> inFlight) {
+        activeRides.addAll(inFlight);
+        Set<Long> finished = new HashSet<>(trackedBefore);
+        finished.removeAll(inFlight);
+        activeRides.removeAll(finished);
+    }
+
+    public int getActiveRideCount() {
+        return activeRides.size();
+    }
+
+    private void onRemoteEvent(DispatchEvent event) {
+        switch (event.getType()) {
+            case RIDE_ACTIVE -> activeRides.add(event.getId());
+            case RIDE_INACTIVE -> activeRides.remove(event.getId());
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import com.tev.riderapp.service.dispatch.cluster.DispatchStateBackend;
+import com.tev.riderapp.service.dispatch.cluster.DriverIndexReplicator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Rebuilds the in-memory dispatch state from the database on startup: available drivers into the
+ * location index and in-flight ride ids into {@link DispatchState}. Drivers are split into id ranges
+ * read in parallel, each walked in keyset pages. Runs as an ApplicationRunner, so Spring Boot only
+ * reports the instance ready (/actuator/health/readiness) once loading has finished.
+ *
+ * When the cluster backend reports that events may have been missed, both are reconciled against
+ * the same rows: available drivers missing from the index are added, indexed drivers that are no
+ * longer available are removed, and finished rides are dropped from the active set.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DispatchStateLoader implements ApplicationRunner {
+    private static final Set<Ride.RideStatus> IN_FLIGHT =
+            EnumSet.of(Ride.RideStatus.REQUESTED, Ride.RideStatus.ACCEPTED, Ride.RideStatus.PICKED_UP);
+
+    private final DriverRepository driverRepository;
+    private final RideRepository rideRepository;
+    private final DriverLocationIndex driverLocationIndex;
+    private final DispatchState dispatchState;
+    private final DriverIndexReplicator driverIndexReplicator;
+    private final DispatchStateBackend dispatchStateBackend;
+    private final ExecutorService resyncExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("dispatch-resync-"));
+    private final AtomicBoolean resyncQueued = new AtomicBoolean();
+
+    @Value("${dispatch.warm-start.page-size:1000}")
+    private int pageSize;
+
+    @Value("${dispatch.warm-start.threads:4}")
+    private int threads;
+
+    @PostConstruct
+    public void registerResync() {
+        dispatchStateBackend.onResyncNeeded(this::scheduleResync);
+    }
+
+    @PreDestroy
+    public void stop() {
+        resyncExecutor.shutdownNow();
+    }
+
+    // Requests arriving while one is queued are covered by it
+    private void scheduleResync() {
+        if (resyncQueued.compareAndSet(false, true)) {
+            resyncExecutor.execute(() -> {
+                resyncQueued.set(false);
+                try {
+                    resync();
+                } catch (RuntimeException e) {
+                    log.warn("Dispatch state resync failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        AtomicInteger drivers = new AtomicInteger();
+        AtomicInteger rides = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("dispatch-warm-start-"));
+        try {
+            List<CompletableFuture<Void>> loads = new ArrayList<>();
+            Long minId = driverRepository.findMinAvailableId();
+            Long maxId = driverRepository.findMaxAvailableId();
+            if (minId != null) {
+                long rangeSize = (maxId - minId) / threads + 1;
+                for (long from = minId; from <= maxId; from += rangeSize) {
+                    long rangeStart = from;
+                    long rangeEnd = Math.min(maxId + 1, from + rangeSize);
+                    loads.add(CompletableFuture.runAsync(() -> drivers.addAndGet(loadDrivers(rangeStart, rangeEnd)), executor));
+                }
+            }
+            loads.add(CompletableFuture.runAsync(() -> rides.addAndGet(loadRides(dispatchState::restoreActiveRide)), executor));
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+        log.info("Warm-started dispatch state with {} drivers and {} in-flight rides in {} ms",
+                drivers.get(), rides.get(), System.currentTimeMillis() - start);
+    }
+
+    // Loads available drivers with fromId <= id < toId
+    private int loadDrivers(long fromId, long toId) {
+        int loaded = 0;
+        long afterId = fromId - 1;
+        while (true) {
+            List<Driver> page = driverRepository.findAvailableBetween(afterId, toId, Limit.of(pageSize));
+            // Every node loads the same rows, so there is nothing to tell the others
+            driverIndexReplicator.withoutPublishing(() -> page.forEach(driverLocationIndex::update));
+            loaded += page.size();
+            if (page.size() < pageSize) {
+                return loaded;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Reconciles the active rides and the driver index with the database. Positions of drivers already indexed are
+     * left alone, since the index is ahead of the stored location. Both differences are checked
+     * again just before they are applied, so a change replicated during the scan is not undone.
+     */
+    public void resync() {
+        long start = System.currentTimeMillis();
+        Set<Long> trackedRides = dispatchState.getActiveRideIds();
+        List<Long> inFlight = new ArrayList<>();
+        loadRides(inFlight::add);
+        dispatchState.reconcile(trackedRides, inFlight);
+
+        Set<Long> indexed = driverLocationIndex.driverIds();
+        Set<Long> stale = new HashSet<>(indexed);
+        Map<Long, Driver> missing = new HashMap<>();
+        long afterId = 0;
+        while (true) {
+            List<Driver> page = driverRepository.findAvailableBetween(afterId, Long.MAX_VALUE, Limit.of(pageSize));
+            for (Driver driver : page) {
+                if (!stale.remove(driver.getId())) {
+                    missing.put(driver.getId(), driver);
+                }
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        Set<Long> changed = new HashSet<>(stale);
+        changed.addAll(missing.keySet());
+        Set<Long> available = new HashSet<>();
+        List<Long> ids = new ArrayList<>(changed);
+        for (int from = 0; from < ids.size(); from += pageSize) {
+            available.addAll(driverRepository.findAvailableIdsIn(ids.subList(from, Math.min(ids.size(), from + pageSize))));
+        }
+
+        int added = 0;
+        int removed = 0;
+        for (Driver driver : missing.values()) {
+            if (available.contains(driver.getId()) && !driverLocationIndex.contains(driver.getId())) {
+                driverIndexReplicator.withoutPublishing(() -> driverLocationIndex.update(driver));
+                added++;
+            }
+        }
+        for (Long driverId : stale) {
+            if (!available.contains(driverId)) {
+                driverIndexReplicator.withoutPublishing(() -> driverLocationIndex.remove(driverId));
+                removed++;
+            }
+        }
+        log.info("Resynced dispatch state: {} active rides, added {} and removed {} drivers in {} ms",
+                dispatchState.getActiveRideCount(), added, removed, System.currentTimeMillis() - start);
+    }
+
+    private int loadRides(Consumer<Long> rideIds) {
+        int loaded = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> page = rideRepository.findIdsByStatusInAfter(IN_FLIGHT, afterId, Limit.of(pageSize));
+            page.forEach(rideIds);
+            loaded += page.size();
+            if (page.size() < pageSize) {
+                return loaded;
+            }
+            afterId = page.get(page.size() - 1);
+        }
+    }
+}
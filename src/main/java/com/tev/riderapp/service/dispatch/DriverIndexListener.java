@@ -0,0 +1,11 @@
+package com.tev.riderapp.service.dispatch;
+
+/**
+ * Notified of every change to {@link DriverLocationIndex} membership. Calls for the same driver
+ * are made under that driver's index lock, so they arrive in order; implementations must be quick.
+ */
+public interface DriverIndexListener {
+    void onDriverIndexed(Long driverId, double latitude, double longitude);
+
+    void onDriverRemoved(Long driverId);
+}
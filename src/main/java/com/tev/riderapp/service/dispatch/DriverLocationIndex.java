@@ -0,0 +1,284 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Grid-bucketed index of available drivers. Drivers are kept in the cell that contains their
+ * last known position so nearest/radius lookups only touch the cells around the pickup.
+ * Writes for the same driver are serialised through a striped lock so a move never leaves the
+ * driver registered in two cells; writes for different drivers proceed in parallel.
+ */
+@Component
+public class DriverLocationIndex {
+    private static final double MAX_SEARCH_RADIUS_KM = 50.0;
+    private static final int LOCK_STRIPES = 64;
+
+    private final GeoGrid grid;
+    private final Map<Long, IndexedDriver> drivers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final List<DriverIndexListener> listeners = new CopyOnWriteArrayList<>();
+
+    public DriverLocationIndex(@Value("${dispatch.index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        this.grid = new GeoGrid(cellSizeDegrees);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public void addListener(DriverIndexListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Adds, moves or removes the driver depending on its availability and current location.
+     */
+    public void update(Driver driver) {
+        Location location = driver.getCurrentLocation();
+        if (!driver.isAvailable() || location == null) {
+            remove(driver.getId());
+            return;
+        }
+        put(driver, location.getLatitude(), location.getLongitude());
+    }
+
+    /**
+     * Re-buckets an already indexed driver at a new position. Drivers that are not indexed
+     * (offline or on a ride) are ignored.
+     */
+    public void move(Long driverId, Location location) {
+        ReentrantLock lock = lockFor(driverId);
+        lock.lock();
+        try {
+            IndexedDriver indexed = drivers.get(driverId);
+            if (indexed != null) {
+                indexed.driver.setCurrentLocation(location);
+                put(indexed.driver, location.getLatitude(), location.getLongitude());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Long driverId) {
+        if (driverId == null) {
+            return;
+        }
+        ReentrantLock lock = lockFor(driverId);
+        lock.lock();
+        try {
+            IndexedDriver previous = drivers.remove(driverId);
+            if (previous != null) {
+                removeFromCell(previous.cell, driverId);
+                for (DriverIndexListener listener : listeners) {
+                    listener.onDriverRemoved(driverId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(Long driverId) {
+        return driverId != null && drivers.containsKey(driverId);
+    }
+
+    // Snapshot of the indexed driver ids
+    public Set<Long> driverIds() {
+        return new HashSet<>(drivers.keySet());
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    public Optional<Driver> findNearest(double latitude, double longitude) {
+        List<Driver> nearest = findNearest(latitude, longitude, 1);
+        return nearest.isEmpty() ? Optional.empty() : Optional.of(nearest.get(0));
+    }
+
+    /**
+     * Expands square rings of cells around the query point until the k-th candidate is closer
+     * than anything an unvisited ring could contain.
+     */
+    public List<Driver> findNearest(double latitude, double longitude, int k) {
+        return findNearest(latitude, longitude, k, Double.MAX_VALUE, driver -> true);
+    }
+
+    /**
+     * The k nearest drivers within maxDistanceKm that pass the filter. Filtering during the scan
+     * rather than afterwards means ineligible drivers close by do not push eligible ones out of
+     * the k.
+     */
+    public List<Driver> findNearest(double latitude, double longitude, int k, double maxDistanceKm, Predicate<Driver> eligible) {
+        if (k <= 0 || maxDistanceKm < 0 || drivers.isEmpty()) {
+            return List.of();
+        }
+        int centerRow = grid.row(latitude);
+        int centerCol = grid.col(longitude);
+        double ringWidthKm = grid.minCellSideKm(latitude);
+        int maxRings = Math.min(grid.getCols() / 2,
+                (int) Math.ceil(Math.min(MAX_SEARCH_RADIUS_KM, maxDistanceKm) / ringWidthKm));
+        int total = drivers.size();
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int ring = 0; ring <= maxRings; ring++) {
+            scanRing(centerRow, centerCol, ring, latitude, longitude, maxDistanceKm, eligible, candidates);
+            if (candidates.size() >= total) {
+                break;
+            }
+            if (candidates.size() >= k) {
+                candidates.sort(Comparator.comparingDouble(c -> c.distanceKm));
+                if (candidates.get(k - 1).distanceKm <= ring * ringWidthKm) {
+                    break;
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(c -> c.distanceKm));
+        return toDrivers(candidates, k);
+    }
+
+    /**
+     * Drivers within radiusKm of the point, closest first.
+     */
+    public List<Driver> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        if (radiusKm <= 0 || drivers.isEmpty()) {
+            return List.of();
+        }
+        int centerRow = grid.row(latitude);
+        int centerCol = grid.col(longitude);
+        int rowSpan = grid.rowsForRadius(radiusKm);
+        int colSpan = grid.colsForRadius(latitude, radiusKm);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int dr = -rowSpan; dr <= rowSpan; dr++) {
+            for (int dc = -colSpan; dc <= colSpan; dc++) {
+                scanCell(grid.cellKey(centerRow + dr, centerCol + dc), latitude, longitude, radiusKm, driver -> true, candidates);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(c -> c.distanceKm));
+        return toDrivers(candidates, candidates.size());
+    }
+
+    private void put(Driver driver, double latitude, double longitude) {
+        long cell = grid.cellKey(latitude, longitude);
+        ReentrantLock lock = lockFor(driver.getId());
+        lock.lock();
+        try {
+            IndexedDriver previous = drivers.put(driver.getId(), new IndexedDriver(driver, latitude, longitude, cell));
+            // Add inside compute so it cannot race with an empty cell being dropped
+            cells.compute(cell, (key, members) -> {
+                Set<Long> target = members != null ? members : ConcurrentHashMap.newKeySet();
+                target.add(driver.getId());
+                return target;
+            });
+            if (previous != null && previous.cell != cell) {
+                removeFromCell(previous.cell, driver.getId());
+            }
+            for (DriverIndexListener listener : listeners) {
+                listener.onDriverIndexed(driver.getId(), latitude, longitude);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Long driverId) {
+        return locks[Math.floorMod(driverId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void removeFromCell(long cell, Long driverId) {
+        cells.computeIfPresent(cell, (key, members) -> {
+            members.remove(driverId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private void scanRing(int centerRow, int centerCol, int ring, double latitude, double longitude,
+                          double maxDistanceKm, Predicate<Driver> eligible, List<Candidate> candidates) {
+        if (ring == 0) {
+            scanCell(grid.cellKey(centerRow, centerCol), latitude, longitude, maxDistanceKm, eligible, candidates);
+            return;
+        }
+        for (int dr = -ring; dr <= ring; dr++) {
+            if (Math.abs(dr) == ring) {
+                for (int dc = -ring; dc <= ring; dc++) {
+                    scanCell(grid.cellKey(centerRow + dr, centerCol + dc), latitude, longitude, maxDistanceKm, eligible, candidates);
+                }
+            } else {
+                scanCell(grid.cellKey(centerRow + dr, centerCol - ring), latitude, longitude, maxDistanceKm, eligible, candidates);
+                scanCell(grid.cellKey(centerRow + dr, centerCol + ring), latitude, longitude, maxDistanceKm, eligible, candidates);
+            }
+        }
+    }
+
+    private void scanCell(long cell, double latitude, double longitude, double maxDistanceKm, Predicate<Driver> eligible,
+                          List<Candidate> candidates) {
+        if (cell < 0) {
+            return;
+        }
+        Set<Long> members = cells.get(cell);
+        if (members == null) {
+            return;
+        }
+        for (Long driverId : members) {
+            IndexedDriver indexed = drivers.get(driverId);
+            // Skip entries that are mid-move; they are picked up from the cell they moved to
+            if (indexed == null || indexed.cell != cell) {
+                continue;
+            }
+            double distance = GeoUtils.haversineKm(latitude, longitude, indexed.latitude, indexed.longitude);
+            if (distance <= maxDistanceKm && eligible.test(indexed.driver)) {
+                candidates.add(new Candidate(indexed.driver, distance));
+            }
+        }
+    }
+
+    private static List<Driver> toDrivers(List<Candidate> candidates, int limit) {
+        int size = Math.min(limit, candidates.size());
+        List<Driver> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(candidates.get(i).driver);
+        }
+        return result;
+    }
+
+    private static final class IndexedDriver {
+        private final Driver driver;
+        private final double latitude;
+        private final double longitude;
+        private final long cell;
+
+        private IndexedDriver(Driver driver, double latitude, double longitude, long cell) {
+            this.driver = driver;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+        }
+    }
+
+    private static final class Candidate {
+        private final Driver driver;
+        private final double distanceKm;
+
+        private Candidate(Driver driver, double distanceKm) {
+            this.driver = driver;
+            this.distanceKm = distanceKm;
+        }
+    }
+}
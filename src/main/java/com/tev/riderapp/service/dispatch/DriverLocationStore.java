@@ -0,0 +1,117 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Latest known position per driver. GPS pings update memory and the dispatch index immediately
+ * and are written to the driver table in periodic batches, so a driver pinging every few seconds
+ * costs one row update per flush interval instead of one per ping.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverLocationStore {
+    private static final String UPDATE_LOCATION_SQL =
+            "UPDATE driver SET latitude = ?, longitude = ?, address = ?, postcode = ? WHERE id = ?";
+
+    private final DriverRepository driverRepository;
+    private final DriverLocationIndex driverLocationIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${driver.location.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<Long, Location> latest = new ConcurrentHashMap<>();
+    private final Map<Long, Location> pending = new ConcurrentHashMap<>();
+    private final Set<Long> knownDrivers = ConcurrentHashMap.newKeySet();
+    private final List<BiConsumer<Long, Location>> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(BiConsumer<Long, Location> listener) {
+        listeners.add(listener);
+    }
+
+    public void record(Long driverId, Location location) {
+        // Only the first ping from a driver after startup costs a lookup
+        if (!knownDrivers.contains(driverId)) {
+            if (!driverRepository.existsById(driverId)) {
+                throw new RuntimeException("Driver not found");
+            }
+            knownDrivers.add(driverId);
+        }
+        latest.put(driverId, location);
+        pending.put(driverId, location);
+        driverLocationIndex.move(driverId, location);
+        for (BiConsumer<Long, Location> listener : listeners) {
+            listener.accept(driverId, location);
+        }
+    }
+
+    public Location getLatest(Long driverId) {
+        return latest.get(driverId);
+    }
+
+    /**
+     * Overlays the latest in-memory position on a driver loaded from the database, which may not
+     * have seen the most recent pings yet.
+     */
+    public Driver withLatestLocation(Driver driver) {
+        Location location = latest.get(driver.getId());
+        if (location != null) {
+            driver.setCurrentLocation(location);
+        }
+        return driver;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${driver.location.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> driverIds = new ArrayList<>(pending.keySet());
+        for (int start = 0; start < driverIds.size(); start += flushBatchSize) {
+            List<Long> chunk = driverIds.subList(start, Math.min(start + flushBatchSize, driverIds.size()));
+            Map<Long, Location> batch = new HashMap<>();
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            for (Long driverId : chunk) {
+                Location location = pending.remove(driverId);
+                if (location == null) {
+                    continue;
+                }
+                batch.put(driverId, location);
+                args.add(new Object[]{location.getLatitude(), location.getLongitude(),
+                        location.getAddress(), location.getPostcode(), driverId});
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_LOCATION_SQL, args);
+            } catch (RuntimeException e) {
+                // Requeue unless a newer ping arrived meanwhile; it will go out next flush
+                batch.forEach(pending::putIfAbsent);
+                log.warn("Failed to flush {} driver locations: {}", args.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.tev.riderapp.service.dispatch;
+
+/**
+ * Fixed lat/lng grid. Each cell is identified by a single long so it can be used
+ * as a cheap hash key; longitude wraps around the antimeridian.
+ */
+public final class GeoGrid {
+    private final double cellSizeDegrees;
+    private final int rows;
+    private final int cols;
+
+    public GeoGrid(double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0 || cellSizeDegrees > 10) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 10 degrees");
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.rows = (int) Math.ceil(180.0 / cellSizeDegrees);
+        this.cols = (int) Math.ceil(360.0 / cellSizeDegrees);
+    }
+
+    public double getCellSizeDegrees() {
+        return cellSizeDegrees;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int row(double latitude) {
+        int row = (int) Math.floor((latitude + 90.0) / cellSizeDegrees);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    public int col(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / cellSizeDegrees), cols);
+    }
+
+    public long cellKey(double latitude, double longitude) {
+        return cellKey(row(latitude), col(longitude));
+    }
+
+    /**
+     * Returns -1 for rows outside the grid so callers can skip them.
+     */
+    public long cellKey(int row, int col) {
+        if (row < 0 || row >= rows) {
+            return -1;
+        }
+        return (long) row * cols + Math.floorMod(col, cols);
+    }
+
+    /**
+     * Smallest side of a cell in km around the given latitude; longitude cells shrink towards the poles.
+     */
+    public double minCellSideKm(double latitude) {
+        double cosLat = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + cellSizeDegrees)));
+        return cellSizeDegrees * GeoUtils.KM_PER_DEGREE_LAT * cosLat;
+    }
+
+    public int rowsForRadius(double radiusKm) {
+        return (int) Math.ceil(radiusKm / (cellSizeDegrees * GeoUtils.KM_PER_DEGREE_LAT));
+    }
+
+    public int colsForRadius(double latitude, double radiusKm) {
+        double furthestLatitude = Math.abs(latitude) + rowsForRadius(radiusKm) * cellSizeDegrees;
+        int span = (int) Math.ceil(radiusKm / minCellSideKm(furthestLatitude));
+        return Math.min(span, cols / 2);
+    }
+}
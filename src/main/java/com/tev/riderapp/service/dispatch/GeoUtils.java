@@ -0,0 +1,21 @@
+package com.tev.riderapp.service.dispatch;
+
+public final class GeoUtils {
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double KM_PER_DEGREE_LAT = 111.195;
+
+    private GeoUtils() {
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dlat = phi2 - phi1;
+        double dlon = Math.toRadians(lon2 - lon1);
+
+        double sinLat = Math.sin(dlat / 2);
+        double sinLon = Math.sin(dlon / 2);
+        double a = sinLat * sinLat + Math.cos(phi1) * Math.cos(phi2) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
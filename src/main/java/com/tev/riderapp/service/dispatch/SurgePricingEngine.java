@@ -0,0 +1,167 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.service.dispatch.cluster.DispatchEvent;
+import com.tev.riderapp.service.dispatch.cluster.DispatchStateBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Surge multipliers per geographic zone from local supply and demand. Demand is the number of
+ * ride requests in a sliding window, kept as a ring of time buckets per zone; supply is the number
+ * of available drivers currently in the zone, maintained from {@link DriverLocationIndex} changes.
+ * Both are O(1) lock-free updates per event. A periodic pass turns them into multipliers, smooths
+ * them with an exponentially weighted moving average so prices do not flap, and publishes an
+ * immutable snapshot that pricing reads without locking. Requests on other nodes arrive through
+ * the {@link DispatchStateBackend}, and so do their drivers, via the replicated index.
+ */
+@Component
+public class SurgePricingEngine implements DriverIndexListener {
+    private final GeoGrid zones;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final long startMillis = System.currentTimeMillis();
+    private final Map<Long, Zone> zoneCounters = new ConcurrentHashMap<>();
+    private final Map<Long, Long> driverZones = new ConcurrentHashMap<>();
+    private final DispatchStateBackend backend;
+    private volatile Map<Long, Double> multipliers = Map.of();
+
+    // Surge starts once the window holds more than this many requests per available driver
+    @Value("${surge.demand-per-driver-threshold:1.0}")
+    private double demandPerDriverThreshold;
+
+    @Value("${surge.sensitivity:0.5}")
+    private double sensitivity;
+
+    @Value("${surge.max-multiplier:3.0}")
+    private double maxMultiplier;
+
+    @Value("${surge.smoothing-alpha:0.3}")
+    private double smoothingAlpha;
+
+    @Value("${surge.step:0.1}")
+    private double step;
+
+    public SurgePricingEngine(@Value("${surge.zone.cell-size-degrees:0.02}") double zoneSizeDegrees,
+                              @Value("${surge.window-seconds:300}") long windowSeconds,
+                              @Value("${surge.window-buckets:10}") int bucketCount,
+                              DriverLocationIndex driverLocationIndex,
+                              DispatchStateBackend backend) {
+        this.zones = new GeoGrid(zoneSizeDegrees);
+        this.bucketCount = bucketCount;
+        this.bucketMillis = Math.max(1, windowSeconds * 1000 / bucketCount);
+        this.backend = backend;
+        driverLocationIndex.addListener(this);
+        backend.subscribe(event -> {
+            if (event.getType() == DispatchEvent.Type.RIDE_REQUESTED) {
+                zone(zones.cellKey(event.getLatitude(), event.getLongitude())).recordDemand(currentBucket());
+            }
+        });
+    }
+
+    public double multiplierAt(Location location) {
+        return multipliers.getOrDefault(zones.cellKey(location.getLatitude(), location.getLongitude()), 1.0);
+    }
+
+    public void recordRequest(Location pickup) {
+        zone(zones.cellKey(pickup.getLatitude(), pickup.getLongitude())).recordDemand(currentBucket());
+        backend.publish(DispatchEvent.rideRequested(pickup.getLatitude(), pickup.getLongitude()));
+    }
+
+    @Override
+    public void onDriverIndexed(Long driverId, double latitude, double longitude) {
+        Long zoneKey = zones.cellKey(latitude, longitude);
+        Long previous = driverZones.put(driverId, zoneKey);
+        if (!zoneKey.equals(previous)) {
+            if (previous != null) {
+                zone(previous).supply.decrementAndGet();
+            }
+            zone(zoneKey).supply.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onDriverRemoved(Long driverId) {
+        Long previous = driverZones.remove(driverId);
+        if (previous != null) {
+            zone(previous).supply.decrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${surge.recompute-interval-ms:1000}")
+    public void recompute() {
+        long bucket = currentBucket();
+        Map<Long, Double> next = new HashMap<>();
+        zoneCounters.forEach((zoneKey, zone) -> {
+            double target = targetMultiplier(zone.demand(bucket), zone.supply.get());
+            zone.smoothed = smoothingAlpha * target + (1 - smoothingAlpha) * zone.smoothed;
+            // Quote in whole steps so small wobbles in the average do not change the price
+            double multiplier = Math.max(1.0, Math.round(zone.smoothed / step) * step);
+            if (multiplier > 1.0) {
+                next.put(zoneKey, multiplier);
+            }
+        });
+        multipliers = Map.copyOf(next);
+    }
+
+    private double targetMultiplier(long demand, int supply) {
+        if (demand == 0) {
+            return 1.0;
+        }
+        if (supply <= 0) {
+            return maxMultiplier;
+        }
+        double excess = (double) demand / supply - demandPerDriverThreshold;
+        return Math.min(maxMultiplier, 1.0 + sensitivity * Math.max(0.0, excess));
+    }
+
+    private long currentBucket() {
+        return (System.currentTimeMillis() - startMillis) / bucketMillis;
+    }
+
+    // Zones are kept once created: a city has few enough cells, and dropping one could lose supply counts
+    private Zone zone(long zoneKey) {
+        return zoneCounters.computeIfAbsent(zoneKey, key -> new Zone(bucketCount));
+    }
+
+    private static final class Zone {
+        // Each slot packs the bucket number in the high 32 bits and its request count in the low 32
+        private final AtomicLongArray buckets;
+        private final AtomicInteger supply = new AtomicInteger();
+        // Only read and written by the recompute pass
+        private double smoothed = 1.0;
+
+        private Zone(int bucketCount) {
+            this.buckets = new AtomicLongArray(bucketCount);
+        }
+
+        private void recordDemand(long bucket) {
+            int slot = (int) (bucket % buckets.length());
+            while (true) {
+                long current = buckets.get(slot);
+                long next = (current >>> 32) == bucket ? current + 1 : (bucket << 32) | 1;
+                if (buckets.compareAndSet(slot, current, next)) {
+                    return;
+                }
+            }
+        }
+
+        private long demand(long bucket) {
+            long total = 0;
+            for (int slot = 0; slot < buckets.length(); slot++) {
+                long value = buckets.get(slot);
+                if (bucket - (value >>> 32) < buckets.length()) {
+                    total += value & 0xFFFFFFFFL;
+                }
+            }
+            return total;
+        }
+    }
+}
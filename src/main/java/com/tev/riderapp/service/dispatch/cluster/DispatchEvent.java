@@ -0,0 +1,92 @@
+package com.tev.riderapp.service.dispatch.cluster;
+
+import lombok.Getter;
+
+/**
+ * A change to dispatch state made on one node that the other nodes need to mirror. Encoded as a
+ * short comma-separated line so many fit into one notification.
+ */
+@Getter
+public final class DispatchEvent {
+    public enum Type {
+        DRIVER_INDEXED('I'),
+        DRIVER_REMOVED('D'),
+        RIDE_ACTIVE('A'),
+        RIDE_INACTIVE('F'),
+        RIDE_REQUESTED('R'),
+        // Committed ride change; carries the pickup so nodes can tell whether nearby drivers care
+        RIDE_UPDATED('U'),
+        // Ping from a driver outside the index, i.e. one on a ride
+        DRIVER_MOVED('M');
+
+        private final char code;
+
+        Type(char code) {
+            this.code = code;
+        }
+
+        static Type fromCode(char code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown dispatch event type: " + code);
+        }
+    }
+
+    private final Type type;
+    private final long id;
+    private final double latitude;
+    private final double longitude;
+    private final long publishedAtMillis;
+
+    private DispatchEvent(Type type, long id, double latitude, double longitude, long publishedAtMillis) {
+        this.type = type;
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.publishedAtMillis = publishedAtMillis;
+    }
+
+    public static DispatchEvent driverIndexed(Long driverId, double latitude, double longitude) {
+        return new DispatchEvent(Type.DRIVER_INDEXED, driverId, latitude, longitude, System.currentTimeMillis());
+    }
+
+    public static DispatchEvent driverRemoved(Long driverId) {
+        return new DispatchEvent(Type.DRIVER_REMOVED, driverId, 0, 0, System.currentTimeMillis());
+    }
+
+    public static DispatchEvent rideActive(Long rideId) {
+        return new DispatchEvent(Type.RIDE_ACTIVE, rideId, 0, 0, System.currentTimeMillis());
+    }
+
+    public static DispatchEvent rideInactive(Long rideId) {
+        return new DispatchEvent(Type.RIDE_INACTIVE, rideId, 0, 0, System.currentTimeMillis());
+    }
+
+    public static DispatchEvent rideRequested(double latitude, double longitude) {
+        return new DispatchEvent(Type.RIDE_REQUESTED, 0, latitude, longitude, System.currentTimeMillis());
+    }
+
+    public static DispatchEvent rideUpdated(Long rideId, double latitude, double longitude) {
+        return new DispatchEvent(Type.RIDE_UPDATED, rideId, latitude, longitude, System.currentTimeMillis());
+    }
+
+    public static DispatchEvent driverMoved(Long driverId, double latitude, double longitude) {
+        return new DispatchEvent(Type.DRIVER_MOVED, driverId, latitude, longitude, System.currentTimeMillis());
+    }
+
+    public String encode() {
+        return type.code + "," + id + "," + latitude + "," + longitude + "," + publishedAtMillis;
+    }
+
+    public static DispatchEvent decode(String line) {
+        String[] parts = line.split(",");
+        if (parts.length != 5 || parts[0].length() != 1) {
+            throw new IllegalArgumentException("Malformed dispatch event: " + line);
+        }
+        return new DispatchEvent(Type.fromCode(parts[0].charAt(0)), Long.parseLong(parts[1]),
+                Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), Long.parseLong(parts[4]));
+    }
+}
@@ -0,0 +1,19 @@
+package com.tev.riderapp.service.dispatch.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries dispatch state changes between application nodes. Subscribers only see events
+ * published by other nodes; each node applies its own changes locally before publishing them.
+ */
+public interface DispatchStateBackend {
+    void publish(DispatchEvent event);
+
+    void subscribe(Consumer<DispatchEvent> subscriber);
+
+    /**
+     * Called whenever this node may have missed events from the others, so local state should be
+     * rebuilt from the database.
+     */
+    void onResyncNeeded(Runnable listener);
+}
@@ -0,0 +1,117 @@
+package com.tev.riderapp.service.dispatch.cluster;
+
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
+import com.tev.riderapp.service.dispatch.DriverIndexListener;
+import com.tev.riderapp.service.dispatch.DriverLocationIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps every node's {@link DriverLocationIndex} in step. Local changes to the index are
+ * published; changes from other nodes are applied to the local index without being published
+ * again. A driver first seen through another node is loaded from the database off the listener
+ * thread, then placed at the most recent position received for them.
+ */
+@Slf4j
+@Component
+public class DriverIndexReplicator implements DriverIndexListener {
+    private final DriverLocationIndex driverLocationIndex;
+    private final DriverRepository driverRepository;
+    private final DispatchStateBackend backend;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("dispatch-state-loader-"));
+    // Latest remote event for drivers that are still being loaded
+    private final Map<Long, DispatchEvent> pendingLoads = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> applyingRemote = ThreadLocal.withInitial(() -> false);
+
+    public DriverIndexReplicator(DriverLocationIndex driverLocationIndex, DriverRepository driverRepository,
+                                 DispatchStateBackend backend) {
+        this.driverLocationIndex = driverLocationIndex;
+        this.driverRepository = driverRepository;
+        this.backend = backend;
+        driverLocationIndex.addListener(this);
+        backend.subscribe(this::onRemoteEvent);
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
+    }
+
+    @Override
+    public void onDriverIndexed(Long driverId, double latitude, double longitude) {
+        if (!applyingRemote.get()) {
+            backend.publish(DispatchEvent.driverIndexed(driverId, latitude, longitude));
+        }
+    }
+
+    @Override
+    public void onDriverRemoved(Long driverId) {
+        if (!applyingRemote.get()) {
+            backend.publish(DispatchEvent.driverRemoved(driverId));
+        }
+    }
+
+    private void onRemoteEvent(DispatchEvent event) {
+        switch (event.getType()) {
+            case DRIVER_INDEXED -> {
+                if (driverLocationIndex.contains(event.getId())) {
+                    withoutPublishing(() -> driverLocationIndex.move(event.getId(), locationOf(event)));
+                } else if (pendingLoads.put(event.getId(), event) == null) {
+                    loader.execute(() -> load(event.getId()));
+                }
+            }
+            case DRIVER_REMOVED -> {
+                // A load in flight sees this before it touches the index
+                pendingLoads.computeIfPresent(event.getId(), (id, latest) -> event);
+                withoutPublishing(() -> driverLocationIndex.remove(event.getId()));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void load(Long driverId) {
+        try {
+            Driver driver = driverRepository.findById(driverId).orElse(null);
+            // The entry stays until the index is updated, so a removal arriving meanwhile either
+            // wins here or is applied after the update
+            pendingLoads.compute(driverId, (id, latest) -> {
+                if (driver != null && latest != null && latest.getType() == DispatchEvent.Type.DRIVER_INDEXED) {
+                    driver.setAvailable(true);
+                    driver.setCurrentLocation(locationOf(latest));
+                    withoutPublishing(() -> driverLocationIndex.update(driver));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            pendingLoads.remove(driverId);
+            log.warn("Could not load driver {} seen on another node: {}", driverId, e.getMessage());
+        }
+    }
+
+    // Applies index changes this node should not announce: ones from other nodes, or state every node loads itself
+    public void withoutPublishing(Runnable change) {
+        applyingRemote.set(true);
+        try {
+            change.run();
+        } finally {
+            applyingRemote.set(false);
+        }
+    }
+
+    private static Location locationOf(DispatchEvent event) {
+        Location location = new Location();
+        location.setLatitude(event.getLatitude());
+        location.setLongitude(event.getLongitude());
+        return location;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tev.riderapp.service.dispatch.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Backend for a single node, where there is nobody to tell. Backends created on a shared peer
+ * list act as the nodes of one cluster inside a single JVM, which is enough to exercise
+ * replication without a database.
+ */
+@Component
+@ConditionalOnProperty(name = "dispatch.cluster.backend", havingValue = "in-process", matchIfMissing = true)
+public class InProcessDispatchStateBackend implements DispatchStateBackend {
+    private final List<InProcessDispatchStateBackend> peers;
+    private final List<Consumer<DispatchEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    public InProcessDispatchStateBackend() {
+        this(new CopyOnWriteArrayList<>());
+    }
+
+    public InProcessDispatchStateBackend(List<InProcessDispatchStateBackend> peers) {
+        this.peers = peers;
+        peers.add(this);
+    }
+
+    @Override
+    public void publish(DispatchEvent event) {
+        for (InProcessDispatchStateBackend peer : peers) {
+            if (peer != this) {
+                peer.subscribers.forEach(subscriber -> subscriber.accept(event));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<DispatchEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    // Delivery is a direct call, so no event is ever missed
+    @Override
+    public void onResyncNeeded(Runnable listener) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.tev.riderapp.service.dispatch.cluster;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Replicates dispatch state over Postgres LISTEN/NOTIFY, so nodes need nothing beyond the database
+ * they already share. Outgoing events are buffered and sent every flush interval: repeated
+ * updates for the same driver or ride collapse to the latest, and the rest are packed into as few
+ * notifications as the payload limit allows. One connection per node is held open to listen.
+ *
+ * NOTIFY is fire-and-forget: a failed send or a listener that is reconnecting loses events, and a
+ * lost removal is never followed by another change for that driver. Subscribers are therefore
+ * asked to resync from the database after every reconnect and on a fixed interval.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "dispatch.cluster.backend", havingValue = "postgres")
+public class PostgresDispatchStateBackend implements DispatchStateBackend {
+    private static final String CHANNEL = "dispatch_state";
+    // Postgres rejects notification payloads of 8000 bytes or more; events are plain ASCII
+    private static final int MAX_PAYLOAD_LENGTH = 7900;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer propagationTimer;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Queue<DispatchEvent> outbound = new ConcurrentLinkedQueue<>();
+    private final List<Consumer<DispatchEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resyncListeners = new CopyOnWriteArrayList<>();
+
+    private Thread listenerThread;
+    private volatile boolean running;
+
+    public PostgresDispatchStateBackend(DataSource dataSource, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        // Publish-to-apply delay as seen by the receiving node; includes any clock skew between nodes
+        this.propagationTimer = meterRegistry.timer("dispatch.state.propagation");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "dispatch-state-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listenerThread.interrupt();
+        flush();
+    }
+
+    @Override
+    public void publish(DispatchEvent event) {
+        outbound.add(event);
+    }
+
+    @Override
+    public void subscribe(Consumer<DispatchEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void onResyncNeeded(Runnable listener) {
+        resyncListeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.cluster.resync-interval-ms:300000}",
+            initialDelayString = "${dispatch.cluster.resync-interval-ms:300000}")
+    public void resync() {
+        resyncListeners.forEach(Runnable::run);
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.cluster.flush-interval-ms:100}")
+    public void flush() {
+        if (outbound.isEmpty()) {
+            return;
+        }
+        Map<String, DispatchEvent> latest = new LinkedHashMap<>();
+        List<DispatchEvent> events = new ArrayList<>();
+        DispatchEvent event;
+        while ((event = outbound.poll()) != null) {
+            switch (event.getType()) {
+                case DRIVER_INDEXED, DRIVER_REMOVED -> latest.put("driver:" + event.getId(), event);
+                case RIDE_ACTIVE, RIDE_INACTIVE -> latest.put("ride:" + event.getId(), event);
+                case RIDE_UPDATED -> latest.put("update:" + event.getId(), event);
+                case DRIVER_MOVED -> latest.put("moved:" + event.getId(), event);
+                // Every request counts towards surge demand, so these are never collapsed
+                case RIDE_REQUESTED -> events.add(event);
+            }
+        }
+        events.addAll(latest.values());
+
+        StringBuilder payload = new StringBuilder(nodeId);
+        for (DispatchEvent pending : events) {
+            String line = pending.encode();
+            if (payload.length() + 1 + line.length() > MAX_PAYLOAD_LENGTH) {
+                notify(payload.toString());
+                payload.setLength(0);
+                payload.append(nodeId);
+            }
+            payload.append('\n').append(line);
+        }
+        notify(payload.toString());
+    }
+
+    private void notify(String payload) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+        } catch (RuntimeException e) {
+            // Lost for good; peers repair their state on their next resync
+            log.warn("Failed to publish dispatch state: {}", e.getMessage());
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for dispatch state on channel {}", CHANNEL);
+                // Anything sent while the previous connection was down is gone
+                if (reconnecting) {
+                    resync();
+                }
+                reconnecting = true;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                reconnecting = true;
+                log.warn("Dispatch state listener lost its connection, retrying: {}", e.getMessage());
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        String[] lines = payload.split("\n");
+        if (lines[0].equals(nodeId)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 1; i < lines.length; i++) {
+            try {
+                DispatchEvent event = DispatchEvent.decode(lines[i]);
+                for (Consumer<DispatchEvent> subscriber : subscribers) {
+                    subscriber.accept(event);
+                }
+                propagationTimer.record(Math.max(0, now - event.getPublishedAtMillis()), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                log.warn("Skipping dispatch state event '{}': {}", lines[i], e.getMessage());
+            }
+        }
+    }
+}
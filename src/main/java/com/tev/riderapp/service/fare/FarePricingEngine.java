@@ -0,0 +1,256 @@
+package com.tev.riderapp.service.fare;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Ride;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prices rides from the fare_rules and fare_modifiers tables. Rules are compiled into an immutable
+ * {@link FareTable} of primitive arrays: per-type rates indexed by ride type, an hour-of-day
+ * multiplier table for time-only modifiers, and a short list of zone boxes. Hours are taken in
+ * the configured pricing zone, not the server's, so rules keep their meaning across daylight
+ * saving changes and wherever the JVM runs. Zone offsets are cached per hour, so finding the hour
+ * allocates nothing once that hour has been seen. Pricing reads the current table through one
+ * volatile field. The tables are re-read on a schedule and swapped in whole, so a fare never
+ * mixes old and new rules; if a reload fails the previous table stays in force.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FarePricingEngine {
+    private static final int HOURS = 24;
+    private static final int RIDE_TYPES = Ride.RideType.values().length;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Used to estimate trip minutes before the ride has happened
+    @Value("${maps.distance.local.average-speed-kmh:30}")
+    private double averageSpeedKmh;
+
+    // Zone the start_hour and end_hour of fare modifiers are written in
+    @Value("${fare.rules.zone-id:Europe/London}")
+    private ZoneId pricingZone;
+
+    private volatile FareTable table;
+    // Ride times are the server's local time
+    private HourlyOffset serverOffset;
+    private HourlyOffset pricingOffset;
+
+    @PostConstruct
+    public void init() {
+        serverOffset = new HourlyOffset(ZoneId.systemDefault().getRules());
+        pricingOffset = new HourlyOffset(pricingZone.getRules());
+        table = loadTable();
+    }
+
+    @Scheduled(fixedDelayString = "${fare.rules.refresh-interval-ms:60000}")
+    public void reload() {
+        try {
+            table = loadTable();
+        } catch (RuntimeException e) {
+            log.warn("Keeping previous fare rules; reload failed: {}", e.getMessage());
+        }
+    }
+
+    public double calculateFare(Ride.RideType rideType, Ride ride) {
+        double minutes;
+        if (ride.getPickupTime() != null) {
+            // Completion prices the ride before stamping the dropoff time
+            LocalDateTime dropoffTime = ride.getDropoffTime() != null ? ride.getDropoffTime() : LocalDateTime.now();
+            minutes = Duration.between(ride.getPickupTime(), dropoffTime).getSeconds() / 60.0;
+        } else {
+            minutes = ride.getDistance() / averageSpeedKmh * 60.0;
+        }
+        int hour = ride.getRequestTime() != null ? hourOf(ride.getRequestTime()) : currentHour();
+        Location pickup = ride.getPickupLocation();
+        return table.fare(rideType.ordinal(), ride.getDistance(), minutes, ride.getSurgeMultiplier(), hour,
+                pickup != null ? pickup.getLatitude() : Double.NaN, pickup != null ? pickup.getLongitude() : Double.NaN);
+    }
+
+    // Hour of day in the pricing zone that a ride requested now is priced at
+    public int currentHour() {
+        return pricingHour(System.currentTimeMillis() / 1000);
+    }
+
+    private int hourOf(LocalDateTime serverTime) {
+        long localSeconds = serverTime.toEpochSecond(ZoneOffset.UTC);
+        return pricingHour(localSeconds - serverOffset.atLocal(serverTime, localSeconds));
+    }
+
+    private int pricingHour(long epochSecond) {
+        long localSeconds = epochSecond + pricingOffset.atEpochSecond(epochSecond);
+        return (int) Math.floorMod(Math.floorDiv(localSeconds, 3600), HOURS);
+    }
+
+    private FareTable loadTable() {
+        double[] baseFare = new double[RIDE_TYPES];
+        double[] perKm = new double[RIDE_TYPES];
+        double[] perMinute = new double[RIDE_TYPES];
+        double[] minimumFare = new double[RIDE_TYPES];
+        boolean[] priced = new boolean[RIDE_TYPES];
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT ride_type, base_fare, per_km, per_minute, minimum_fare FROM fare_rules")) {
+            int type = Ride.RideType.valueOf((String) row.get("ride_type")).ordinal();
+            baseFare[type] = number(row, "base_fare");
+            perKm[type] = number(row, "per_km");
+            perMinute[type] = number(row, "per_minute");
+            minimumFare[type] = number(row, "minimum_fare");
+            priced[type] = true;
+        }
+        for (Ride.RideType rideType : Ride.RideType.values()) {
+            if (!priced[rideType.ordinal()]) {
+                throw new IllegalStateException("No fare rule for ride type " + rideType);
+            }
+        }
+
+        double[] hourMultiplier = new double[RIDE_TYPES * HOURS];
+        Arrays.fill(hourMultiplier, 1.0);
+        List<double[]> zones = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT ride_type, start_hour, end_hour, min_latitude, min_longitude, max_latitude, max_longitude, multiplier"
+                        + " FROM fare_modifiers ORDER BY id")) {
+            String rideType = (String) row.get("ride_type");
+            int type = rideType != null ? Ride.RideType.valueOf(rideType).ordinal() : -1;
+            boolean[] hours = hours(row);
+            double multiplier = number(row, "multiplier");
+            if (row.get("min_latitude") == null) {
+                // Time-only modifiers fold into the hour table
+                for (int t = 0; t < RIDE_TYPES; t++) {
+                    if (type == -1 || type == t) {
+                        for (int hour = 0; hour < HOURS; hour++) {
+                            if (hours[hour]) {
+                                hourMultiplier[t * HOURS + hour] *= multiplier;
+                            }
+                        }
+                    }
+                }
+            } else {
+                int hourMask = 0;
+                for (int hour = 0; hour < HOURS; hour++) {
+                    if (hours[hour]) {
+                        hourMask |= 1 << hour;
+                    }
+                }
+                zones.add(new double[]{type, hourMask, number(row, "min_latitude"), number(row, "min_longitude"),
+                        number(row, "max_latitude"), number(row, "max_longitude"), multiplier});
+            }
+        }
+        log.info("Loaded fare rules for {} ride types with {} zone modifiers", RIDE_TYPES, zones.size());
+        return new FareTable(baseFare, perKm, perMinute, minimumFare, hourMultiplier, zones.toArray(new double[0][]));
+    }
+
+    // Hours covered by the modifier's [start_hour, end_hour) window, which may wrap past midnight; all hours if unset
+    private static boolean[] hours(Map<String, Object> row) {
+        boolean[] hours = new boolean[HOURS];
+        Object start = row.get("start_hour");
+        Object end = row.get("end_hour");
+        if (start == null || end == null) {
+            Arrays.fill(hours, true);
+            return hours;
+        }
+        int from = ((Number) start).intValue();
+        int to = ((Number) end).intValue();
+        for (int hour = from; hour != to; hour = (hour + 1) % HOURS) {
+            hours[hour] = true;
+        }
+        return hours;
+    }
+
+    private static double number(Map<String, Object> row, String column) {
+        return ((Number) row.get(column)).doubleValue();
+    }
+
+    /**
+     * The offset of one zone for the hour last asked about. Offsets only change at transitions,
+     * which fall on the hour, so every later call in the same hour is answered without touching
+     * ZoneRules. A miss replaces the cached hour whole.
+     */
+    private static final class HourlyOffset {
+        private final ZoneRules rules;
+        private volatile Hour cached = new Hour(Long.MIN_VALUE, 0);
+
+        private HourlyOffset(ZoneRules rules) {
+            this.rules = rules;
+        }
+
+        // Offset in force at a local time of this zone, given with its seconds counted as if it were UTC
+        private int atLocal(LocalDateTime localTime, long localSeconds) {
+            Hour current = cached;
+            if (current.hour == Math.floorDiv(localSeconds, 3600)) {
+                return current.offsetSeconds;
+            }
+            return remember(localSeconds, rules.getOffset(localTime));
+        }
+
+        private int atEpochSecond(long epochSecond) {
+            Hour current = cached;
+            if (current.hour == Math.floorDiv(epochSecond, 3600)) {
+                return current.offsetSeconds;
+            }
+            return remember(epochSecond, rules.getOffset(Instant.ofEpochSecond(epochSecond)));
+        }
+
+        private int remember(long seconds, ZoneOffset offset) {
+            cached = new Hour(Math.floorDiv(seconds, 3600), offset.getTotalSeconds());
+            return offset.getTotalSeconds();
+        }
+
+        private record Hour(long hour, int offsetSeconds) {
+        }
+    }
+
+    /**
+     * Immutable compiled rules. Zone rows hold {type or -1, hour mask, min lat, min lon, max lat,
+     * max lon, multiplier}.
+     */
+    private static final class FareTable {
+        private final double[] baseFare;
+        private final double[] perKm;
+        private final double[] perMinute;
+        private final double[] minimumFare;
+        private final double[] hourMultiplier;
+        private final double[][] zones;
+
+        private FareTable(double[] baseFare, double[] perKm, double[] perMinute, double[] minimumFare,
+                          double[] hourMultiplier, double[][] zones) {
+            this.baseFare = baseFare;
+            this.perKm = perKm;
+            this.perMinute = perMinute;
+            this.minimumFare = minimumFare;
+            this.hourMultiplier = hourMultiplier;
+            this.zones = zones;
+        }
+
+        private double fare(int type, double distanceKm, double minutes, double surge, int hour,
+                            double latitude, double longitude) {
+            double fare = Math.max(minimumFare[type], baseFare[type] + perKm[type] * distanceKm + perMinute[type] * minutes);
+            double multiplier = hourMultiplier[type * HOURS + hour];
+            for (double[] zone : zones) {
+                if ((zone[0] < 0 || zone[0] == type)
+                        && (((int) zone[1] >>> hour) & 1) == 1
+                        && latitude >= zone[2] && longitude >= zone[3]
+                        && latitude <= zone[4] && longitude <= zone[5]) {
+                    multiplier *= zone[6];
+                }
+            }
+            return fare * multiplier * surge;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.tev.riderapp.service.fare;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Ride;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class FareQuote {
+    private final String id;
+    // Only this passenger can book with the quote
+    private final Long passengerId;
+    private final Location pickupLocation;
+    private final Location dropoffLocation;
+    private final double distance;
+    private final double surgeMultiplier;
+    private final Map<Ride.RideType, Double> fares;
+    private final LocalDateTime expiresAt;
+}
@@ -0,0 +1,206 @@
+package com.tev.riderapp.service.fare;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.service.DistanceService;
+import com.tev.riderapp.service.GoogleMapsService;
+import com.tev.riderapp.service.dispatch.GeoGrid;
+import com.tev.riderapp.service.dispatch.SurgePricingEngine;
+import com.tev.riderapp.service.maps.GeocodeCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Prices a trip for every ride type without creating a ride. Distance and fares are cached for a
+ * short time by (pickup cell, dropoff cell, surge multiplier, pricing hour), so repeated price
+ * checks along popular routes skip the Distance Matrix call. Cached prices and quotes are each
+ * held in a bounded LRU, like {@link GeocodeCache}. Each quote keeps the caller's own geocoded
+ * locations, is bound to the passenger who asked for it, and can be redeemed once by that
+ * passenger before it expires. Redeeming is part of the booking transaction, so a booking that
+ * fails leaves the quote usable. Quotes live in the memory of the node that issued them;
+ * redeeming on another node falls back to pricing the request anew.
+ */
+@Service
+public class FareQuoteService {
+    private final GoogleMapsService googleMapsService;
+    private final DistanceService distanceService;
+    private final SurgePricingEngine surgePricingEngine;
+    private final FarePricingEngine farePricingEngine;
+    private final GeoGrid grid;
+
+    @Value("${fare.quote.ttl-seconds:300}")
+    private long quoteTtlSeconds;
+
+    @Value("${fare.quote.cache.ttl-seconds:60}")
+    private long pricingTtlSeconds;
+
+    @Value("${fare.quote.max-size:100000}")
+    private int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, CachedPricing> pricing = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPricing> eldest) {
+            return size() > maxSize;
+        }
+    };
+    // Insertion order is expiry order, since every quote lives for the same time
+    private final Map<String, FareQuote> quotes = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FareQuote> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public FareQuoteService(GoogleMapsService googleMapsService, DistanceService distanceService,
+                            SurgePricingEngine surgePricingEngine, FarePricingEngine farePricingEngine,
+                            @Value("${fare.quote.cache.cell-size-degrees:0.002}") double cellSizeDegrees) {
+        this.googleMapsService = googleMapsService;
+        this.distanceService = distanceService;
+        this.surgePricingEngine = surgePricingEngine;
+        this.farePricingEngine = farePricingEngine;
+        this.grid = new GeoGrid(cellSizeDegrees);
+    }
+
+    public FareQuote quote(Long passengerId, String pickupPostcode, String pickupAddress, String dropoffPostcode, String dropoffAddress) {
+        if (passengerId == null) {
+            throw new RuntimeException("Passenger id is required");
+        }
+        Location pickup = geocode(pickupPostcode, pickupAddress);
+        Location dropoff = geocode(dropoffPostcode, dropoffAddress);
+        double surgeMultiplier = surgePricingEngine.multiplierAt(pickup);
+
+        String key = grid.cellKey(pickup.getLatitude(), pickup.getLongitude()) + ":"
+                + grid.cellKey(dropoff.getLatitude(), dropoff.getLongitude()) + ":"
+                + Math.round(surgeMultiplier * 100) + ":"
+                + farePricingEngine.currentHour();
+        long now = System.currentTimeMillis();
+        CachedPricing cached = locked(() -> pricing.get(key));
+        if (cached == null || cached.expiresAtMillis < now) {
+            // Priced outside the lock; a concurrent miss for the same key only repeats the work
+            CachedPricing priced = price(pickup, dropoff, surgeMultiplier, now + pricingTtlSeconds * 1000);
+            locked(() -> pricing.put(key, priced));
+            cached = priced;
+        }
+
+        FareQuote quote = new FareQuote(UUID.randomUUID().toString(), passengerId, pickup, dropoff, cached.distance,
+                surgeMultiplier, cached.fares, LocalDateTime.now().plusSeconds(quoteTtlSeconds));
+        locked(() -> quotes.put(quote.getId(), quote));
+        return quote;
+    }
+
+    // An expired quote is treated as never issued
+    public Optional<FareQuote> find(String quoteId) {
+        FareQuote quote = quoteId != null ? locked(() -> quotes.get(quoteId)) : null;
+        if (quote == null || quote.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(quote);
+    }
+
+    // A request naming postcodes must name the quoted ones; postcodes left out are taken from the quote
+    public void checkTrip(FareQuote quote, String pickupPostcode, String dropoffPostcode) {
+        if (differs(pickupPostcode, quote.getPickupLocation()) || differs(dropoffPostcode, quote.getDropoffLocation())) {
+            throw new RuntimeException("Pickup or dropoff does not match the quote");
+        }
+    }
+
+    // Single use: consumed by the booking transaction, and put back if that transaction rolls back
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void redeem(FareQuote quote) {
+        if (quote.getExpiresAt().isBefore(LocalDateTime.now()) || !locked(() -> quotes.remove(quote.getId(), quote))) {
+            throw new RuntimeException("Quote has expired or has already been used");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    locked(() -> quotes.putIfAbsent(quote.getId(), quote));
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${fare.quote.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now();
+        lock.lock();
+        try {
+            pricing.values().removeIf(cached -> cached.expiresAtMillis < now);
+            // Stops at the first quote still valid; everything after it was issued later
+            Iterator<FareQuote> oldestFirst = quotes.values().iterator();
+            while (oldestFirst.hasNext() && oldestFirst.next().getExpiresAt().isBefore(cutoff)) {
+                oldestFirst.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T locked(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedPricing price(Location pickup, Location dropoff, double surgeMultiplier, long expiresAtMillis) {
+        Ride trip = new Ride();
+        trip.setDistance(distanceService.calculateDistance(pickup, dropoff));
+        trip.setSurgeMultiplier(surgeMultiplier);
+        // Zone modifiers are matched on the pickup point
+        trip.setPickupLocation(pickup);
+        Map<Ride.RideType, Double> fares = new EnumMap<>(Ride.RideType.class);
+        for (Ride.RideType rideType : Ride.RideType.values()) {
+            fares.put(rideType, farePricingEngine.calculateFare(rideType, trip));
+        }
+        return new CachedPricing(trip.getDistance(), Collections.unmodifiableMap(fares), expiresAtMillis);
+    }
+
+    private static boolean differs(String postcode, Location quoted) {
+        return postcode != null && !postcode.isBlank()
+                && !GeocodeCache.normalise(postcode).equals(GeocodeCache.normalise(quoted.getPostcode()));
+    }
+
+    private Location geocode(String postcode, String address) {
+        Location location = googleMapsService.geocodePostcode(postcode);
+        if (location == null) {
+            throw new RuntimeException("Could not find location for postcode: " + postcode);
+        }
+        if (address != null && !address.isEmpty()) {
+            location.setAddress(address);
+        }
+        return location;
+    }
+
+    private static final class CachedPricing {
+        private final double distance;
+        private final Map<Ride.RideType, Double> fares;
+        private final long expiresAtMillis;
+
+        private CachedPricing(double distance, Map<Ride.RideType, Double> fares, long expiresAtMillis) {
+            this.distance = distance;
+            this.fares = fares;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
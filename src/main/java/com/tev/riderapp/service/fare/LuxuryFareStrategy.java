@@ -1,15 +1,16 @@
 package com.tev.riderapp.service.fare;
 
 import com.tev.riderapp.model.Ride;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component
+@RequiredArgsConstructor
 public class LuxuryFareStrategy implements FareCalculationStrategy {
-    private static final double RATE_PER_KM = 0.50;
+    private final FarePricingEngine farePricingEngine;
     
     @Override
     public double calculateFare(Ride ride) {
-        double distanceFare = ride.getDistance() * RATE_PER_KM;
-        return distanceFare * ride.getSurgeMultiplier();
+        return farePricingEngine.calculateFare(Ride.RideType.LUXURY, ride);
     }
 }
\ No newline at end of file
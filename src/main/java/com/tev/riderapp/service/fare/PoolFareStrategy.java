@@ -1,15 +1,15 @@
 package com.tev.riderapp.service.fare;
 import com.tev.riderapp.model.Ride;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component
+@RequiredArgsConstructor
 public class PoolFareStrategy implements FareCalculationStrategy {
-    private static final double BASE_FARE = 3.0;
-    private static final double RATE_PER_KM = 1.5;
+    private final FarePricingEngine farePricingEngine;
     
     @Override
     public double calculateFare(Ride ride) {
-        double distanceFare = ride.getDistance() * RATE_PER_KM;
-        return (BASE_FARE + distanceFare) * ride.getSurgeMultiplier();
+        return farePricingEngine.calculateFare(Ride.RideType.POOL, ride);
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.tev.riderapp.service.maps;
+
+import com.tev.riderapp.model.Location;
+
+public interface DistanceProvider {
+    /**
+     * Road distance and travel time between two points. Implementations throw on failure rather
+     * than returning a zero distance, so callers can fall back instead of pricing a free ride.
+     */
+    RouteEstimate estimate(Location from, Location to);
+}
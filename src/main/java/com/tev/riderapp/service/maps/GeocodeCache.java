@@ -0,0 +1,187 @@
+package com.tev.riderapp.service.maps;
+
+import com.tev.riderapp.model.GeocodeCacheEntry;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.rideshare.repository.GeocodeCacheRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Two-level postcode geocode cache: a bounded in-memory LRU in front of the geocode_cache table,
+ * so results survive restarts and are shared across instances. Concurrent misses for the same
+ * postcode share one lookup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GeocodeCache {
+    private static final Pattern UK_POSTCODE = Pattern.compile("^[A-Z]{1,2}[0-9][A-Z0-9]?[0-9][A-Z]{2}$");
+
+    private final GeocodeCacheRepository geocodeCacheRepository;
+
+    @Value("${geocode.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${geocode.cache.ttl-hours:720}")
+    private long ttlHours;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, GeocodeCacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GeocodeCacheEntry> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final Map<String, CompletableFuture<Location>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a fresh copy of the cached location, calling the loader on a miss. Loader results
+     * of null are not cached.
+     */
+    public Location get(String postcode, Function<String, Location> loader) {
+        String key = normalise(postcode);
+        if (key.isEmpty()) {
+            return null;
+        }
+
+        GeocodeCacheEntry cached = getFromMemory(key);
+        if (cached != null) {
+            return toLocation(cached);
+        }
+
+        CompletableFuture<Location> lookup = new CompletableFuture<>();
+        CompletableFuture<Location> existing = inFlight.putIfAbsent(key, lookup);
+        if (existing != null) {
+            return copy(join(existing));
+        }
+
+        try {
+            Location location = load(key, loader);
+            lookup.complete(location);
+            return copy(location);
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, lookup);
+        }
+    }
+
+    public static String normalise(String postcode) {
+        if (postcode == null) {
+            return "";
+        }
+        String compact = postcode.replaceAll("\\s+", "").toUpperCase(Locale.ROOT);
+        if (UK_POSTCODE.matcher(compact).matches()) {
+            return compact.substring(0, compact.length() - 3) + " " + compact.substring(compact.length() - 3);
+        }
+        return compact;
+    }
+
+    @Scheduled(fixedDelayString = "${geocode.cache.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int removed = geocodeCacheRepository.deleteExpired(LocalDateTime.now().minusHours(ttlHours));
+        if (removed > 0) {
+            log.info("Purged {} expired geocode cache entries", removed);
+        }
+    }
+
+    private Location load(String key, Function<String, Location> loader) {
+        GeocodeCacheEntry stored = geocodeCacheRepository.findById(key).orElse(null);
+        if (stored != null && !isExpired(stored)) {
+            putInMemory(stored);
+            return toLocation(stored);
+        }
+
+        Location location = loader.apply(key);
+        if (location == null) {
+            return null;
+        }
+
+        GeocodeCacheEntry entry = new GeocodeCacheEntry();
+        entry.setPostcode(key);
+        entry.setLatitude(location.getLatitude());
+        entry.setLongitude(location.getLongitude());
+        entry.setAddress(location.getAddress());
+        entry.setCachedAt(LocalDateTime.now());
+        try {
+            geocodeCacheRepository.save(entry);
+        } catch (RuntimeException e) {
+            // The lookup itself succeeded; losing the persisted copy only costs a future API call
+            log.warn("Could not persist geocode cache entry for {}: {}", key, e.getMessage());
+        }
+        putInMemory(entry);
+        return location;
+    }
+
+    private GeocodeCacheEntry getFromMemory(String key) {
+        lock.lock();
+        try {
+            GeocodeCacheEntry entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putInMemory(GeocodeCacheEntry entry) {
+        lock.lock();
+        try {
+            entries.put(entry.getPostcode(), entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(GeocodeCacheEntry entry) {
+        return entry.getCachedAt() == null
+                || Duration.between(entry.getCachedAt(), LocalDateTime.now()).toHours() >= ttlHours;
+    }
+
+    private static Location join(CompletableFuture<Location> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Location toLocation(GeocodeCacheEntry entry) {
+        Location location = new Location();
+        location.setLatitude(entry.getLatitude());
+        location.setLongitude(entry.getLongitude());
+        location.setAddress(entry.getAddress());
+        location.setPostcode(entry.getPostcode());
+        return location;
+    }
+
+    // Callers overwrite the address on the returned location, so never hand out a shared instance
+    private static Location copy(Location location) {
+        if (location == null) {
+            return null;
+        }
+        return new Location(location.getLatitude(), location.getLongitude(), location.getAddress(), location.getPostcode());
+    }
+}
@@ -0,0 +1,29 @@
+package com.tev.riderapp.service.maps;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.service.dispatch.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Great-circle distance scaled by a road factor to approximate the driven route. Needs no network
+ * access, so it doubles as the fallback when the remote provider is slow or down.
+ */
+@Component
+public class LocalDistanceProvider implements DistanceProvider {
+
+    @Value("${maps.distance.local.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${maps.distance.local.average-speed-kmh:30}")
+    private double averageSpeedKmh;
+
+    @Override
+    public RouteEstimate estimate(Location from, Location to) {
+        double straightLineKm = GeoUtils.haversineKm(from.getLatitude(), from.getLongitude(),
+                to.getLatitude(), to.getLongitude());
+        double distanceKm = straightLineKm * roadFactor;
+        long durationSeconds = Math.round(distanceKm / averageSpeedKmh * 3600);
+        return new RouteEstimate(distanceKm, durationSeconds);
+    }
+}
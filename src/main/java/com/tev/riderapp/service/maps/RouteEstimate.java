@@ -0,0 +1,11 @@
+package com.tev.riderapp.service.maps;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RouteEstimate {
+    private final double distanceKm;
+    private final long durationSeconds;
+}
@@ -0,0 +1,80 @@
+package com.tev.riderapp.service.maps;
+
+import com.tev.riderapp.model.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Short-lived, bounded LRU of origin/destination route estimates, like {@link GeocodeCache}'s
+ * in-memory level. Coordinates are rounded to roughly 10m so repeated pings from a parked driver
+ * hit the same entry.
+ */
+@Component
+public class RouteEstimateCache {
+
+    @Value("${maps.distance.cache.ttl-seconds:120}")
+    private long ttlSeconds;
+
+    @Value("${maps.distance.cache.max-size:50000}")
+    private int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, CachedEstimate> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedEstimate> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public RouteEstimate get(Location from, Location to) {
+        String key = key(from, to);
+        lock.lock();
+        try {
+            CachedEstimate cached = entries.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAtMillis < System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return cached.estimate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(Location from, Location to, RouteEstimate estimate) {
+        CachedEstimate cached = new CachedEstimate(estimate, System.currentTimeMillis() + ttlSeconds * 1000);
+        String key = key(from, to);
+        lock.lock();
+        try {
+            entries.put(key, cached);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String key(Location from, Location to) {
+        return round(from.getLatitude()) + "," + round(from.getLongitude()) + ">"
+                + round(to.getLatitude()) + "," + round(to.getLongitude());
+    }
+
+    private static long round(double coordinate) {
+        return Math.round(coordinate * 10_000);
+    }
+
+    private static final class CachedEstimate {
+        private final RouteEstimate estimate;
+        private final long expiresAtMillis;
+
+        private CachedEstimate(RouteEstimate estimate, long expiresAtMillis) {
+            this.estimate = estimate;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
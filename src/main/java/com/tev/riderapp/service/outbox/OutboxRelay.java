@@ -0,0 +1,83 @@
+package com.tev.riderapp.service.outbox;
+
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.OutboxEvent;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.observer.RideEventBus;
+import com.tev.riderapp.rideshare.repository.OutboxEventRepository;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import com.tev.riderapp.service.dispatch.cluster.DispatchEvent;
+import com.tev.riderapp.service.dispatch.cluster.DispatchStateBackend;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox in batches, handing ride updates to the {@link RideEventBus} observers.
+ * Each event is claimed by a single node, so the update is also announced to the other nodes,
+ * which push it to the ride streams they hold. Delivery is at least once; an event is deleted
+ * only when its batch commits. Events that keep failing are retried up to max-attempts and then
+ * left in the table for inspection.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final RideRepository rideRepository;
+    private final RideEventBus rideEventBus;
+    private final DispatchStateBackend dispatchStateBackend;
+
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(maxAttempts, batchSize);
+        if (events.isEmpty()) {
+            return;
+        }
+        Set<Long> rideIds = events.stream().map(OutboxEvent::getAggregateId).collect(Collectors.toSet());
+        Map<Long, Ride> rides = rideRepository.findByIdIn(rideIds).stream()
+                .collect(Collectors.toMap(Ride::getId, Function.identity()));
+
+        // Observers get the ride as it is now, once per batch, in the order it first changed
+        Set<Ride> updated = new LinkedHashSet<>();
+        List<OutboxEvent> done = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Ride ride = rides.get(event.getAggregateId());
+            if (ride == null) {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setLastError("Ride not found");
+                log.warn("Outbox event {} ({}) refers to missing ride {}", event.getId(), event.getEventType(), event.getAggregateId());
+                continue;
+            }
+            updated.add(ride);
+            done.add(event);
+        }
+        updated.forEach(rideEventBus::publish);
+        updated.forEach(this::announce);
+        outboxEventRepository.deleteAllInBatch(done);
+    }
+
+    private void announce(Ride ride) {
+        Location pickup = ride.getPickupLocation();
+        dispatchStateBackend.publish(DispatchEvent.rideUpdated(ride.getId(),
+                pickup != null ? pickup.getLatitude() : Double.NaN, pickup != null ? pickup.getLongitude() : Double.NaN));
+    }
+}
@@ -0,0 +1,31 @@
+package com.tev.riderapp.service.outbox;
+
+import com.tev.riderapp.model.OutboxEvent;
+import com.tev.riderapp.model.OutboxEventType;
+import com.tev.riderapp.rideshare.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records side effects of a ride state change in the same transaction as the change itself, so
+ * they are neither lost if the node dies after commit nor emitted for a change that rolled back.
+ * {@link OutboxRelay} carries them out afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideOutbox {
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEventType eventType, Long rideId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(rideId);
+        event.setCreatedAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+    }
+}
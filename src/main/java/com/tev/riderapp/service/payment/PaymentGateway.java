@@ -0,0 +1,11 @@
+package com.tev.riderapp.service.payment;
+
+import com.tev.riderapp.model.Payment;
+
+public interface PaymentGateway {
+    /**
+     * Charges the payment, using its transactionId as the idempotency key. Returns false if the
+     * charge was declined; throws if the outcome is unknown and the charge should be retried.
+     */
+    boolean charge(Payment payment);
+}
@@ -0,0 +1,111 @@
+package com.tev.riderapp.service.payment;
+
+import com.tev.riderapp.model.Payment;
+import com.tev.riderapp.model.PaymentStatus;
+import com.tev.riderapp.rideshare.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charges PENDING payments in the background. Each poll leases due payments by pushing their
+ * next attempt time forward, so a payment is only in flight on one worker across all nodes; if a
+ * worker dies mid-charge the lease expires and the payment is picked up again. Transient gateway
+ * errors are retried with exponential backoff and jitter until max-attempts is reached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentProcessor {
+    private final PaymentRepository paymentRepository;
+    private final PaymentGateway paymentGateway;
+
+    @Value("${payments.processor.threads:4}")
+    private int threads;
+
+    @Value("${payments.processor.batch-size:50}")
+    private int batchSize;
+
+    @Value("${payments.processor.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${payments.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payments.retry.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${payments.retry.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("payment-worker-"));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Payment workers did not finish before shutdown; leased payments will be retried");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payments.processor.poll-interval-ms:500}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = paymentRepository.findDueIds(PaymentStatus.PENDING, now, Limit.of(batchSize));
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+        for (Long paymentId : due) {
+            if (paymentRepository.claim(paymentId, PaymentStatus.PENDING, now, leaseUntil) == 1) {
+                executor.execute(() -> process(paymentId));
+            }
+        }
+    }
+
+    private void process(Long paymentId) {
+        Payment payment = paymentRepository.findById(paymentId).orElse(null);
+        if (payment == null || payment.getStatus() != PaymentStatus.PENDING) {
+            return;
+        }
+        payment.setAttempts(payment.getAttempts() + 1);
+        try {
+            boolean approved = paymentGateway.charge(payment);
+            payment.setStatus(approved ? PaymentStatus.COMPLETED : PaymentStatus.FAILED);
+            payment.setLastError(approved ? null : "Declined");
+            payment.setNextAttemptAt(null);
+        } catch (RuntimeException e) {
+            payment.setLastError(e.getMessage());
+            if (payment.getAttempts() >= maxAttempts) {
+                payment.setStatus(PaymentStatus.FAILED);
+                payment.setNextAttemptAt(null);
+                log.warn("Payment {} failed after {} attempts: {}", paymentId, payment.getAttempts(), e.getMessage());
+            } else {
+                payment.setNextAttemptAt(LocalDateTime.now().plus(backoffMs(payment.getAttempts()), ChronoUnit.MILLIS));
+            }
+        }
+        paymentRepository.save(payment);
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        // Full jitter so payments that failed together do not retry together
+        return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+    }
+}
@@ -0,0 +1,16 @@
+package com.tev.riderapp.service.payment;
+
+import com.tev.riderapp.model.Payment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+// Stand-in until a real gateway is integrated; approves every charge
+@Slf4j
+@Component
+public class SimulatedPaymentGateway implements PaymentGateway {
+    @Override
+    public boolean charge(Payment payment) {
+        log.info("Simulated charge of £{} for transaction {}", String.format("%.2f", payment.getAmount()), payment.getTransactionId());
+        return true;
+    }
+}
@@ -0,0 +1,19 @@
+-- Login and registration look users up by email; emails must be unique per user type.
+--
+-- Registration checked for an existing email before inserting, without a constraint, so
+-- concurrent sign-ups could leave duplicates behind and creating the unique indexes would fail.
+-- Cleanup before the indexes: the oldest account (lowest id) keeps the email, and each later
+-- duplicate is renamed to '<email>#duplicate-<id>'. Renamed accounts keep their rides, payments
+-- and ledger entries for support to merge by hand. They could not log in before either, since
+-- the lookup by email failed on more than one match.
+
+UPDATE passenger p
+SET email = p.email || '#duplicate-' || p.id
+WHERE EXISTS (SELECT 1 FROM passenger o WHERE o.email = p.email AND o.id < p.id);
+
+UPDATE driver d
+SET email = d.email || '#duplicate-' || d.id
+WHERE EXISTS (SELECT 1 FROM driver o WHERE o.email = d.email AND o.id < d.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_passenger_email ON passenger (email);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_driver_email ON driver (email);
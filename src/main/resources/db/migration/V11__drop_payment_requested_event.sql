@@ -0,0 +1,6 @@
+-- PAYMENT_REQUESTED is no longer written: payments are queued in the payments table and charged
+-- by the payment processor. Drain any leftovers and stop the constraint accepting it.
+DELETE FROM outbox_events WHERE event_type = 'PAYMENT_REQUESTED';
+
+ALTER TABLE outbox_events DROP CONSTRAINT IF EXISTS outbox_events_event_type_check;
+ALTER TABLE outbox_events ADD CONSTRAINT outbox_events_event_type_check CHECK (event_type IN ('RIDE_UPDATED'));
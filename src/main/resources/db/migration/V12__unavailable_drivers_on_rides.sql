@@ -0,0 +1,7 @@
+-- Accepting a ride did not clear driver.available, so drivers partway through a ride were loaded
+-- back into the dispatch index at startup. Acceptance clears it now; this corrects existing rows.
+-- Ride status is stored as an ordinal: 1 = ACCEPTED, 2 = PICKED_UP.
+UPDATE driver d
+SET available = false
+WHERE d.available
+  AND EXISTS (SELECT 1 FROM rides r WHERE r.driver_id = d.id AND r.status IN (1, 2));
@@ -0,0 +1,76 @@
+-- Schema as previously generated by hibernate.ddl-auto=update. Every statement is idempotent so
+-- the script can run against databases that were created before migrations were introduced.
+
+CREATE SEQUENCE IF NOT EXISTS user_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS passenger (
+    id              BIGINT NOT NULL PRIMARY KEY,
+    first_name      VARCHAR(255),
+    last_name       VARCHAR(255),
+    email           VARCHAR(255),
+    phone           VARCHAR(255),
+    password        VARCHAR(255),
+    wallet_balance  FLOAT(53) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS driver (
+    id              BIGINT NOT NULL PRIMARY KEY,
+    first_name      VARCHAR(255),
+    last_name       VARCHAR(255),
+    email           VARCHAR(255),
+    phone           VARCHAR(255),
+    password        VARCHAR(255),
+    vehicle_number  VARCHAR(255),
+    vehicle_type    VARCHAR(255),
+    available       BOOLEAN NOT NULL,
+    rating          FLOAT(53) NOT NULL,
+    earnings        FLOAT(53) NOT NULL,
+    total_rides     INTEGER,
+    latitude        FLOAT(53),
+    longitude       FLOAT(53),
+    address         VARCHAR(255),
+    postcode        VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS rides (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    passenger_id        BIGINT REFERENCES passenger (id),
+    driver_id           BIGINT REFERENCES driver (id),
+    pickup_latitude     FLOAT(53),
+    pickup_longitude    FLOAT(53),
+    pickup_address      VARCHAR(255),
+    pickup_postcode     VARCHAR(255),
+    dropoff_latitude    FLOAT(53),
+    dropoff_longitude   FLOAT(53),
+    dropoff_address     VARCHAR(255),
+    dropoff_postcode    VARCHAR(255),
+    request_time        TIMESTAMP(6),
+    pickup_time         TIMESTAMP(6),
+    dropoff_time        TIMESTAMP(6),
+    -- Enums are stored by ordinal (RideStatus: 0 REQUESTED .. 4 CANCELLED)
+    status              SMALLINT CHECK (status BETWEEN 0 AND 4),
+    ride_type           SMALLINT CHECK (ride_type BETWEEN 0 AND 2),
+    fare                FLOAT(53) NOT NULL,
+    distance            FLOAT(53) NOT NULL,
+    rating              INTEGER NOT NULL,
+    surge_multiplier    FLOAT(53) NOT NULL,
+    payment_method      VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    ride_id         BIGINT UNIQUE REFERENCES rides (id),
+    amount          FLOAT(53) NOT NULL,
+    payment_type    VARCHAR(255) CHECK (payment_type IN ('CREDIT_CARD', 'DEBIT_CARD', 'WALLET', 'CASH')),
+    status          VARCHAR(255) CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED')),
+    timestamp       TIMESTAMP(6),
+    transaction_id  VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS geocode_cache (
+    postcode    VARCHAR(255) NOT NULL PRIMARY KEY,
+    latitude    FLOAT(53) NOT NULL,
+    longitude   FLOAT(53) NOT NULL,
+    address     VARCHAR(255),
+    cached_at   TIMESTAMP(6)
+);
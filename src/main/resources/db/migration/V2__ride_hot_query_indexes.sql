@@ -0,0 +1,22 @@
+-- Indexes for the queries behind ride listing, dispatch, login and payments.
+
+-- Ride history keyset pages: WHERE passenger_id/driver_id = ? ORDER BY request_time DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_rides_passenger_request_time ON rides (passenger_id, request_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_rides_driver_request_time ON rides (driver_id, request_time DESC, id DESC);
+
+-- Open requests (status 0 = REQUESTED) are a small, hot slice of the table
+CREATE INDEX IF NOT EXISTS idx_rides_requested ON rides (request_time DESC, id DESC) WHERE status = 0;
+
+-- Rides still in flight (REQUESTED, ACCEPTED, PICKED_UP)
+CREATE INDEX IF NOT EXISTS idx_rides_in_flight ON rides (status, id) WHERE status IN (0, 1, 2);
+
+-- Unique email indexes for login and registration are created in V10, after duplicate cleanup
+
+-- findByAvailableTrue, walked in id order
+CREATE INDEX IF NOT EXISTS idx_driver_available ON driver (id) WHERE available;
+
+-- Payment lookups by ride; older databases may lack the unique constraint on ride_id
+CREATE INDEX IF NOT EXISTS idx_payments_ride_id ON payments (ride_id);
+
+-- Expiry purge of the geocode cache
+CREATE INDEX IF NOT EXISTS idx_geocode_cache_cached_at ON geocode_cache (cached_at);
@@ -0,0 +1,11 @@
+-- User is no longer a TABLE_PER_CLASS root, so the passenger and driver tables stay as they are
+-- and no rows move. The shared id sequence is pinned to the pooled allocation size used by the
+-- entities and moved past every id already handed out.
+
+ALTER SEQUENCE user_seq INCREMENT BY 50;
+
+SELECT setval('user_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 1) FROM passenger),
+    (SELECT COALESCE(MAX(id), 1) FROM driver),
+    (SELECT last_value FROM user_seq)
+));
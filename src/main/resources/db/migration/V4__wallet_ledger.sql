@@ -0,0 +1,24 @@
+-- Wallet balances move from a float column to integer pence, backed by an append-only ledger.
+
+ALTER TABLE passenger ADD COLUMN wallet_balance_minor BIGINT NOT NULL DEFAULT 0;
+UPDATE passenger SET wallet_balance_minor = ROUND(wallet_balance * 100);
+ALTER TABLE passenger ADD CONSTRAINT chk_passenger_wallet_balance_non_negative CHECK (wallet_balance_minor >= 0);
+
+CREATE TABLE wallet_entries (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    passenger_id    BIGINT NOT NULL REFERENCES passenger (id),
+    amount_minor    BIGINT NOT NULL,
+    entry_type      VARCHAR(32) NOT NULL CHECK (entry_type IN ('TOP_UP', 'WITHDRAWAL', 'RIDE_PAYMENT', 'REFUND')),
+    reference       VARCHAR(255),
+    created_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_wallet_entries_passenger ON wallet_entries (passenger_id, id);
+
+-- Carry existing balances into the ledger so entries always sum to the balance
+INSERT INTO wallet_entries (passenger_id, amount_minor, entry_type, reference, created_at)
+SELECT id, wallet_balance_minor, 'TOP_UP', 'migrated balance', NOW()
+FROM passenger
+WHERE wallet_balance_minor > 0;
+
+ALTER TABLE passenger DROP COLUMN wallet_balance;
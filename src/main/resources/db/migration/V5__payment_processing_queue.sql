@@ -0,0 +1,11 @@
+-- Retry bookkeeping for the background payment processor
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP(6);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS last_error VARCHAR(255);
+
+-- Payments left PENDING by the old synchronous flow become due immediately
+UPDATE payments SET next_attempt_at = now() WHERE status = 'PENDING' AND next_attempt_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_payments_pending_due
+    ON payments (next_attempt_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,9 @@
+-- Side effects of ride state changes, written in the same transaction and drained by the relay
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type    VARCHAR(255) NOT NULL CHECK (event_type IN ('RIDE_UPDATED', 'PAYMENT_REQUESTED')),
+    aggregate_id  BIGINT NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    attempts      INTEGER NOT NULL DEFAULT 0,
+    last_error    VARCHAR(255)
+);
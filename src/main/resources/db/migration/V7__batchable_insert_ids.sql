@@ -0,0 +1,12 @@
+-- IDENTITY ids force Hibernate to insert each row as soon as it is persisted, which rules out
+-- JDBC batching. These tables switch to pooled sequences matching the entities' allocation size.
+-- The identity columns stay, so explicit ids from the sequences are accepted as before.
+
+CREATE SEQUENCE IF NOT EXISTS payments_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('payments_seq', (SELECT COALESCE(MAX(id), 1) FROM payments));
+
+CREATE SEQUENCE IF NOT EXISTS wallet_entries_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('wallet_entries_seq', (SELECT COALESCE(MAX(id), 1) FROM wallet_entries));
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('outbox_events_seq', (SELECT COALESCE(MAX(id), 1) FROM outbox_events));
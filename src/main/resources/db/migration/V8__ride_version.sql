@@ -0,0 +1,2 @@
+-- Optimistic lock version for ride state transitions
+ALTER TABLE rides ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
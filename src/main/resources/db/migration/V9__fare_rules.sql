@@ -0,0 +1,33 @@
+-- Fare rules per ride type, compiled into in-memory pricing tables by FarePricingEngine
+CREATE TABLE IF NOT EXISTS fare_rules (
+    ride_type VARCHAR(20) PRIMARY KEY CHECK (ride_type IN ('STANDARD', 'POOL', 'LUXURY')),
+    base_fare DOUBLE PRECISION NOT NULL,
+    per_km DOUBLE PRECISION NOT NULL,
+    per_minute DOUBLE PRECISION NOT NULL DEFAULT 0,
+    minimum_fare DOUBLE PRECISION NOT NULL DEFAULT 0
+);
+
+-- Multipliers applied on top of the rule. A null ride_type applies to every type, null hours mean
+-- all day (end_hour exclusive, may wrap past midnight), and a null box means everywhere.
+CREATE TABLE IF NOT EXISTS fare_modifiers (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    ride_type VARCHAR(20) CHECK (ride_type IN ('STANDARD', 'POOL', 'LUXURY')),
+    start_hour INTEGER CHECK (start_hour BETWEEN 0 AND 23),
+    end_hour INTEGER CHECK (end_hour BETWEEN 0 AND 23),
+    min_latitude DOUBLE PRECISION,
+    min_longitude DOUBLE PRECISION,
+    max_latitude DOUBLE PRECISION,
+    max_longitude DOUBLE PRECISION,
+    multiplier DOUBLE PRECISION NOT NULL CHECK (multiplier > 0),
+    CHECK ((start_hour IS NULL) = (end_hour IS NULL)),
+    CHECK ((min_latitude IS NULL) = (min_longitude IS NULL)
+        AND (min_latitude IS NULL) = (max_latitude IS NULL)
+        AND (min_latitude IS NULL) = (max_longitude IS NULL))
+);
+
+-- Seeded with the rates previously hard-coded in the fare strategies
+INSERT INTO fare_rules (ride_type, base_fare, per_km, per_minute, minimum_fare) VALUES
+    ('STANDARD', 5.0, 2.0, 0, 0),
+    ('POOL', 3.0, 1.5, 0, 0),
+    ('LUXURY', 0, 0.5, 0, 0)
+ON CONFLICT (ride_type) DO NOTHING;
@@ -0,0 +1,21 @@
+package com.tev.riderapp;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Boots the whole application against a real Postgres, migrated by Flyway like production. One
+ * container is shared by every subclass for the life of the JVM, started on first use, so the
+ * cached Spring context keeps a live database between test classes. Tests create their own rows
+ * with unique emails and ids and must not assume the tables are empty.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+}
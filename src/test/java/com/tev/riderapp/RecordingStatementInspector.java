@@ -0,0 +1,46 @@
+package com.tev.riderapp;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the SQL Hibernate prepares on the calling thread, as Hibernate generated it. Registered
+ * for every test through application-test.properties; it only records inside {@link #record}.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> recorded = RECORDED.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+        return sql;
+    }
+
+    // Runs the action and returns the statements it prepared, in order
+    public static List<String> record(Runnable action) {
+        return record(() -> {
+            action.run();
+            return null;
+        }).statements();
+    }
+
+    public static <T> Recorded<T> record(Supplier<T> action) {
+        List<String> recorded = new ArrayList<>();
+        RECORDED.set(recorded);
+        try {
+            T result = action.get();
+            return new Recorded<>(result, recorded);
+        } finally {
+            RECORDED.remove();
+        }
+    }
+
+    public record Recorded<T>(T result, List<String> statements) {
+    }
+}
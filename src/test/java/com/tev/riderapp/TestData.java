@@ -0,0 +1,61 @@
+package com.tev.riderapp;
+
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.Ride;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Unsaved entities with unique emails, for tests that share one database
+public final class TestData {
+    private TestData() {
+    }
+
+    public static Passenger passenger() {
+        Passenger passenger = new Passenger();
+        passenger.setFirstName("Pat");
+        passenger.setLastName("Passenger");
+        passenger.setEmail("passenger-" + UUID.randomUUID() + "@example.com");
+        passenger.setPassword("secret");
+        return passenger;
+    }
+
+    public static Driver driver(double latitude, double longitude) {
+        Driver driver = new Driver();
+        driver.setFirstName("Dee");
+        driver.setLastName("Driver");
+        driver.setEmail("driver-" + UUID.randomUUID() + "@example.com");
+        driver.setPassword("secret");
+        driver.setVehicleNumber("AB12 CDE");
+        driver.setVehicleType("Saloon");
+        driver.setAvailable(true);
+        driver.setCurrentLocation(location(latitude, longitude));
+        return driver;
+    }
+
+    public static Ride ride(Passenger passenger, Driver driver, Ride.RideStatus status) {
+        Ride ride = new Ride();
+        ride.setPassenger(passenger);
+        ride.setDriver(driver);
+        ride.setPickupLocation(location(51.5074, -0.1278));
+        ride.setDropoffLocation(location(51.5155, -0.0922));
+        ride.setRequestTime(LocalDateTime.now());
+        ride.setStatus(status);
+        ride.setRideType(Ride.RideType.STANDARD);
+        ride.setDistance(3.2);
+        ride.setFare(11.4);
+        ride.setSurgeMultiplier(1.0);
+        ride.setPaymentMethod("CREDIT_CARD");
+        return ride;
+    }
+
+    public static Location location(double latitude, double longitude) {
+        Location location = new Location();
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        location.setPostcode("EC1A 1BB");
+        return location;
+    }
+}
@@ -0,0 +1,164 @@
+package com.tev.riderapp.rideshare.repository;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import com.tev.riderapp.RecordingStatementInspector;
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.Ride;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the hot repository queries are planned on the indexes from the migrations. Each
+ * repository method is called once with the statement inspector recording, and the SQL Hibernate
+ * actually sent is prepared and explained with the parameters listed next to it. The tables are
+ * filled with a production-like spread (few open rides, few available drivers) and analysed
+ * inside a transaction that is rolled back, so the planner chooses as it would on real data and
+ * nothing is left behind for other tests.
+ */
+class QueryPlanTest extends PostgresIntegrationTest {
+    private static final String[] FIXTURE = {
+            "INSERT INTO passenger (id, email, wallet_balance_minor)"
+                    + " SELECT 10000000 + g, 'plan-passenger-' || g || '@example.com', 0 FROM generate_series(1, 5000) g",
+            "INSERT INTO driver (id, email, available, rating, earnings)"
+                    + " SELECT 10000000 + g, 'plan-driver-' || g || '@example.com', g % 20 = 0, 0, 0 FROM generate_series(1, 5000) g",
+            // 1% each REQUESTED, ACCEPTED and PICKED_UP; the rest COMPLETED
+            "INSERT INTO rides (id, passenger_id, driver_id, request_time, status, ride_type, fare, distance, rating, surge_multiplier)"
+                    + " SELECT 10000000 + g, 10000001 + g % 5000, 10000001 + (g * 7) % 5000, now() - g * interval '1 minute',"
+                    + " CASE WHEN g % 100 < 3 THEN g % 100 ELSE 3 END, 0, 10, 3, 0, 1 FROM generate_series(1, 50000) g",
+            "INSERT INTO payments (id, ride_id, amount, payment_type, status, timestamp, transaction_id)"
+                    + " SELECT 10000000 + g, 10000000 + g, 10, 'CREDIT_CARD', 'COMPLETED', now(), 'plan-' || g"
+                    + " FROM generate_series(1, 50000, 2) g",
+            "ANALYZE passenger",
+            "ANALYZE driver",
+            "ANALYZE rides",
+            "ANALYZE payments"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void hotQueriesUseTheirIndexes() throws SQLException {
+        // Parameters are SQL expressions in the order of the placeholders in the generated statement
+        List<HotQuery> hotQueries = List.of(
+                new HotQuery(capture(() -> rideRepository.findPassengerRides(10000042L, Limit.of(20))),
+                        List.of("10000042", "20"), "idx_rides_passenger_request_time"),
+                new HotQuery(capture(() -> rideRepository.findDriverRidesBefore(10000042L, LocalDateTime.now(), 10049000L, Limit.of(20))),
+                        List.of("10000042", "localtimestamp", "localtimestamp", "10049000", "20"), "idx_rides_driver_request_time"),
+                // Behind GET /api/rides/active
+                new HotQuery(capture(() -> rideRepository.findByStatus(Ride.RideStatus.REQUESTED, Limit.of(20))),
+                        List.of("0", "20"), "idx_rides_requested"),
+                // The warm-start loader
+                new HotQuery(capture(() -> rideRepository.findIdsByStatusInAfter(
+                        List.of(Ride.RideStatus.REQUESTED, Ride.RideStatus.ACCEPTED, Ride.RideStatus.PICKED_UP), 0, Limit.of(1000))),
+                        List.of("0", "1", "2", "0", "1000"), "idx_rides_in_flight"),
+                new HotQuery(capture(() -> passengerRepository.findByEmail("plan-passenger-42@example.com")),
+                        List.of("'plan-passenger-42@example.com'"), "ux_passenger_email"),
+                new HotQuery(capture(() -> driverRepository.findByEmail("plan-driver-42@example.com")),
+                        List.of("'plan-driver-42@example.com'"), "ux_driver_email"),
+                new HotQuery(capture(() -> driverRepository.findAvailableBetween(0, 20000000, Limit.of(1000))),
+                        List.of("0", "20000000", "1000"), "idx_driver_available"));
+        // PaymentRepository.findByRide binds a ride, so it needs one that exists; either unique index on ride_id will do
+        Ride ride = savedRide();
+        String paymentByRide = capture(() -> paymentRepository.findByRide(ride));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : FIXTURE) {
+                    statement.execute(sql);
+                }
+                SoftAssertions softly = new SoftAssertions();
+                for (HotQuery query : hotQueries) {
+                    softly.assertThat(explain(statement, query.sql(), query.parameters())).as(query.sql())
+                            .contains(query.index()).doesNotContain("Seq Scan");
+                }
+                softly.assertThat(explain(statement, paymentByRide, List.of("10000043"))).as(paymentByRide)
+                        .contains("Index").doesNotContain("Seq Scan");
+                softly.assertAll();
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    // The one query the repository call sent, as Hibernate generated it
+    private static String capture(Runnable call) {
+        List<String> statements = RecordingStatementInspector.record(call);
+        assertThat(statements).as("statements sent").hasSize(1);
+        return statements.get(0);
+    }
+
+    private Ride savedRide() {
+        Passenger passenger = passengerRepository.save(TestData.passenger());
+        Driver driver = driverRepository.save(TestData.driver(51.5074, -0.1278));
+        return rideRepository.save(TestData.ride(passenger, driver, Ride.RideStatus.COMPLETED));
+    }
+
+    // Prepared with numbered placeholders so the plan is the one Postgres picks for these parameter values
+    private static String explain(Statement statement, String sql, List<String> parameters) {
+        StringBuilder numbered = new StringBuilder();
+        int placeholders = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++placeholders);
+            } else {
+                numbered.append(c);
+            }
+        }
+        if (placeholders != parameters.size()) {
+            throw new IllegalStateException(placeholders + " placeholders but " + parameters.size() + " parameters: " + sql);
+        }
+        try {
+            statement.execute("PREPARE hot_query AS " + numbered);
+            try {
+                return explain(statement, "EXECUTE hot_query(" + String.join(", ", parameters) + ")");
+            } finally {
+                statement.execute("DEALLOCATE hot_query");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not prepare: " + sql, e);
+        }
+    }
+
+    private static String explain(Statement statement, String sql) {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not explain: " + sql, e);
+        }
+        return plan.toString();
+    }
+
+    private record HotQuery(String sql, List<String> parameters, String index) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
+import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import com.tev.riderapp.service.dispatch.DriverIndexListener;
+import com.tev.riderapp.service.dispatch.DriverLocationIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every nearby driver taps accept on the same request at once. Exactly one must get the ride, and
+ * only the winner's acceptance may leave side effects: one outbox event and one removal from the
+ * dispatch index.
+ */
+class AcceptRideRaceTest extends PostgresIntegrationTest {
+    private static final int DRIVERS = 200;
+    private static final int THREADS = 50;
+
+    @Autowired
+    private RideManagementSystem rideService;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private DriverLocationIndex driverLocationIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exactlyOneOfManyRacingDriversWinsTheRide() throws Exception {
+        Passenger passenger = passengerRepository.save(TestData.passenger());
+        // Saved directly, so the only outbox rows for the ride come from accepting it
+        Ride ride = rideRepository.save(TestData.ride(passenger, null, Ride.RideStatus.REQUESTED));
+
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < DRIVERS; i++) {
+            drivers.add(TestData.driver(51.5074 + i * 0.0001, -0.1278));
+        }
+        drivers = driverRepository.saveAll(drivers);
+        Set<Long> driverIds = ConcurrentHashMap.newKeySet();
+        drivers.forEach(driver -> {
+            driverIds.add(driver.getId());
+            driverLocationIndex.update(driver);
+        });
+
+        Map<Long, AtomicInteger> removals = new ConcurrentHashMap<>();
+        driverLocationIndex.addListener(new DriverIndexListener() {
+            @Override
+            public void onDriverIndexed(Long driverId, double latitude, double longitude) {
+            }
+
+            @Override
+            public void onDriverRemoved(Long driverId) {
+                if (driverIds.contains(driverId)) {
+                    removals.computeIfAbsent(driverId, key -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+        });
+
+        Set<Long> winners = ConcurrentHashMap.newKeySet();
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Driver driver : drivers) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        rideService.acceptRide(ride.getId(), driver.getId());
+                        winners.add(driver.getId());
+                    } catch (RuntimeException e) {
+                        assertThat(e).hasMessage("Ride is no longer available");
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(winners).hasSize(1);
+        assertThat(refused.get()).isEqualTo(DRIVERS - 1);
+        Long winner = winners.iterator().next();
+
+        Ride accepted = rideRepository.findById(ride.getId()).orElseThrow();
+        assertThat(accepted.getStatus()).isEqualTo(Ride.RideStatus.ACCEPTED);
+        assertThat(accepted.getDriver().getId()).isEqualTo(winner);
+        assertThat(driverRepository.findById(winner).orElseThrow().isAvailable()).isFalse();
+
+        Integer outboxRows = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM outbox_events WHERE aggregate_id = ? AND event_type = 'RIDE_UPDATED'",
+                Integer.class, ride.getId());
+        assertThat(outboxRows).isEqualTo(1);
+
+        assertThat(removals).containsOnlyKeys(winner);
+        assertThat(removals.get(winner).get()).isEqualTo(1);
+        assertThat(driverLocationIndex.contains(winner)).isFalse();
+        drivers.stream()
+                .filter(driver -> !driver.getId().equals(winner))
+                .forEach(driver -> assertThat(driverLocationIndex.contains(driver.getId())).isTrue());
+    }
+}
@@ -0,0 +1,91 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.Payment;
+import com.tev.riderapp.model.PaymentStatus;
+import com.tev.riderapp.model.PaymentType;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.model.WalletEntryType;
+import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import com.tev.riderapp.rideshare.repository.PaymentRepository;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A passenger retries a failed wallet payment from several devices at once. Only one resubmission
+ * may debit the wallet; the others either see the completed payment or are refused.
+ */
+class PaymentResubmitRaceTest extends PostgresIntegrationTest {
+    private static final int THREADS = 8;
+    private static final long OPENING_BALANCE = 10_000;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void concurrentResubmissionsOfAFailedWalletPaymentDebitOnce() throws Exception {
+        Passenger passenger = passengerRepository.save(TestData.passenger());
+        walletLedgerService.credit(passenger.getId(), OPENING_BALANCE, WalletEntryType.TOP_UP, "opening");
+        Ride ride = rideRepository.save(TestData.ride(passenger, null, Ride.RideStatus.COMPLETED));
+        Payment failed = new Payment();
+        failed.setRide(ride);
+        failed.setAmount(ride.getFare());
+        failed.setPaymentType(PaymentType.WALLET);
+        failed.setStatus(PaymentStatus.FAILED);
+        failed.setTimestamp(LocalDateTime.now());
+        paymentRepository.save(failed);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Payment>> attempts = new ArrayList<>();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < THREADS; i++) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    return paymentService.processPayment(ride.getId(), PaymentType.WALLET, null);
+                }));
+            }
+            start.countDown();
+            for (Future<Payment> attempt : attempts) {
+                try {
+                    assertThat(attempt.get(1, TimeUnit.MINUTES).getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).hasMessage("Payment is already being resubmitted");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(walletLedgerService.getBalanceMinor(passenger.getId()))
+                .isEqualTo(OPENING_BALANCE - WalletLedgerService.toMinorUnits(ride.getFare()));
+        assertThat(paymentRepository.findByRide(ride).getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+    }
+}
@@ -0,0 +1,92 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import com.tev.riderapp.RecordingStatementInspector;
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.PaymentStatus;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.model.WalletEntryType;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
+import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import com.tev.riderapp.rideshare.repository.PaymentRepository;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Completing a ride must cost the same statements every time: the reads it needs, the wallet
+ * debit, and one batched statement per table at commit. Sequence refills are left out of the
+ * count, since when one falls due depends on ids handed out earlier in the JVM. The time per
+ * completion is logged, not asserted.
+ */
+@Slf4j
+class RideCompletionTest extends PostgresIntegrationTest {
+    private static final int RIDES = 40;
+
+    @Autowired
+    private RideManagementSystem rideService;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void walletCompletionIsAFixedNumberOfStatements() {
+        // select ride, select payment (already paid?), update wallet, select payment (reuse row?),
+        // select driver, then at commit: insert wallet entry, payment and outbox event, update ride and driver
+        completeAll("WALLET", 10, PaymentStatus.COMPLETED);
+    }
+
+    @Test
+    void cardCompletionIsAFixedNumberOfStatements() {
+        // As for the wallet, without the debit and its ledger entry
+        completeAll("CREDIT_CARD", 8, PaymentStatus.PENDING);
+    }
+
+    private void completeAll(String paymentMethod, int expectedStatements, PaymentStatus expectedStatus) {
+        Passenger passenger = passengerRepository.save(TestData.passenger());
+        walletLedgerService.credit(passenger.getId(), 1_000_000, WalletEntryType.TOP_UP, "opening");
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < RIDES; i++) {
+            Driver driver = TestData.driver(51.5074, -0.1278);
+            driver.setAvailable(false);
+            Ride ride = TestData.ride(passenger, driverRepository.save(driver), Ride.RideStatus.PICKED_UP);
+            ride.setPickupTime(LocalDateTime.now().minusMinutes(12));
+            ride.setPaymentMethod(paymentMethod);
+            rides.add(rideRepository.save(ride));
+        }
+
+        long elapsedNanos = 0;
+        for (Ride ride : rides) {
+            long started = System.nanoTime();
+            List<String> statements = RecordingStatementInspector.record(() -> rideService.completeRide(ride.getId()));
+            elapsedNanos += System.nanoTime() - started;
+            assertThat(statements.stream().filter(sql -> !sql.contains("nextval")))
+                    .as("statements completing ride %d: %s", ride.getId(), statements)
+                    .hasSize(expectedStatements);
+            assertThat(paymentRepository.findByRide(ride).getStatus()).isEqualTo(expectedStatus);
+        }
+        log.info("Completed {} {} rides at {} ms each", RIDES, paymentMethod,
+                String.format("%.2f", elapsedNanos / 1e6 / RIDES));
+    }
+}
@@ -0,0 +1,126 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.dto.RideResponseDto;
+import com.tev.riderapp.mapper.RideMapper;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
+import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ride listings must cost a fixed number of statements however many rows they return. Each ride
+ * here has its own driver or passenger, so any per-row association load would show up as extra
+ * statements. Listings are mapped to DTOs outside a transaction, as the controllers do, so a lazy
+ * association that was not fetched would also fail the test.
+ */
+class RideQueryCountTest extends PostgresIntegrationTest {
+    private static final int RIDES = 25;
+
+    @Autowired
+    private RideManagementSystem rideService;
+
+    @Autowired
+    private RideMapper rideMapper;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Passenger passenger;
+    private Driver driver;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        passenger = passengerRepository.save(TestData.passenger());
+        driver = driverRepository.save(TestData.driver(51.5, -0.12));
+
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < RIDES; i++) {
+            Passenger otherPassenger = passengerRepository.save(TestData.passenger());
+            Driver otherDriver = driverRepository.save(TestData.driver(51.5, -0.12));
+            rides.add(TestData.ride(passenger, otherDriver, Ride.RideStatus.COMPLETED));
+            rides.add(TestData.ride(otherPassenger, driver, Ride.RideStatus.ACCEPTED));
+            rides.add(TestData.ride(otherPassenger, null, Ride.RideStatus.REQUESTED));
+        }
+        rideRepository.saveAll(rides);
+    }
+
+    @Test
+    void passengerHistoryIsOneStatementPerPage() {
+        RidePage first = countStatements(1, () -> rideService.getPassengerRides(passenger.getId(), null, 10));
+        assertThat(first.getRides()).hasSize(10);
+
+        RidePage second = countStatements(1, () -> rideService.getPassengerRides(passenger.getId(), first.getNextCursor(), 10));
+        assertThat(second.getRides()).hasSize(10);
+    }
+
+    @Test
+    void driverHistoryIsOneStatementPerPage() {
+        RidePage page = countStatements(1, () -> rideService.getDriverRides(driver.getId(), null, RIDES));
+        assertThat(page.getRides()).hasSize(RIDES);
+    }
+
+    @Test
+    void openRequestsAreOneStatementPerPage() {
+        RidePage page = countStatements(1, () -> rideService.getActiveRides(null, 20));
+        assertThat(page.getRides()).hasSize(20);
+    }
+
+    @Test
+    void warmStartPageIsOneStatement() {
+        statistics.clear();
+        List<Long> page = rideRepository.findIdsByStatusInAfter(
+                EnumSet.of(Ride.RideStatus.REQUESTED, Ride.RideStatus.ACCEPTED), 0, Limit.of(50));
+        assertThat(page).hasSize(50);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void ratingUpdatesTheDriverWithoutAnOpenSession() {
+        Ride ride = rideRepository.save(TestData.ride(passenger, driver, Ride.RideStatus.COMPLETED));
+
+        rideService.rateRide(ride.getId(), 4);
+
+        Driver rated = driverRepository.findById(driver.getId()).orElseThrow();
+        assertThat(rated.getRating()).isEqualTo(4.0);
+        assertThat(rated.getTotalRides()).isEqualTo(1);
+    }
+
+    // Runs the listing, maps every ride the way the controllers do, and checks the statement count
+    private RidePage countStatements(long expected, Supplier<RidePage> listing) {
+        statistics.clear();
+        RidePage page = listing.get();
+        List<RideResponseDto> dtos = page.getRides().stream().map(rideMapper::toDto).toList();
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getPassengerName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+        return page;
+    }
+}
@@ -0,0 +1,106 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import com.tev.riderapp.RecordingStatementInspector;
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.rideshare.repository.DriverRepository;
+import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registration and lookup throughput for passengers and drivers as standalone tables. Lookups are
+ * also timed through the query the old TABLE_PER_CLASS root needed for a user by email, a UNION
+ * across both tables, so the two layouts can be compared on the same data. Run with -Pbenchmarks.
+ */
+@Slf4j
+@Tag("benchmark")
+class UserRegistrationBenchmark extends PostgresIntegrationTest {
+    private static final int USERS = 2_000;
+    private static final int LOOKUP_ROUNDS = 5;
+
+    // What Hibernate built for a polymorphic User lookup while User was a TABLE_PER_CLASS root
+    private static final String UNION_LOOKUP = """
+            select u.id, u.clazz_ from (
+                select id, email, 1 as clazz_ from passenger
+                union all
+                select id, email, 2 as clazz_ from driver
+            ) u where u.email = ?""";
+
+    private static final String PASSENGER_LOOKUP = "select id from passenger where email = ?";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void registrationTakesOneSequenceCallPerBlockOfIds() {
+        List<String> emails = new ArrayList<>();
+        long started = System.nanoTime();
+        List<String> statements = RecordingStatementInspector.record(() -> {
+            for (int i = 0; i < USERS; i++) {
+                emails.add(userService.registerPassenger(TestData.passenger()).getEmail());
+                userService.registerDriver(TestData.driver(51.5074, -0.1278));
+            }
+        });
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long sequenceCalls = statements.stream().filter(sql -> sql.contains("nextval")).count();
+        log.info("Registered {} passengers and {} drivers in {} s ({} registrations/s, {} sequence calls)",
+                USERS, USERS, String.format("%.2f", seconds), Math.round(2 * USERS / seconds), sequenceCalls);
+
+        // Each entity draws blocks of 50 from user_seq; a fresh generator may call twice before its first block
+        assertThat(sequenceCalls).isLessThanOrEqualTo(2 * USERS / 50 + 4);
+        assertThat(passengerRepository.findByEmail(emails.get(0))).isNotNull();
+    }
+
+    @Test
+    void lookupsByEmailAgainstTheOldUnion() {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            emails.add(passengerRepository.save(TestData.passenger()).getEmail());
+            driverRepository.save(TestData.driver(51.5074, -0.1278));
+        }
+
+        double repository = lookupsPerSecond(emails, email -> passengerRepository.findByEmail(email).getId());
+        double table = lookupsPerSecond(emails,
+                email -> jdbcTemplate.queryForObject(PASSENGER_LOOKUP, Long.class, email));
+        double union = lookupsPerSecond(emails,
+                email -> jdbcTemplate.queryForObject(UNION_LOOKUP, (row, n) -> row.getLong("id"), email));
+        log.info("Lookups by email over {} users: {}/s through the repository, {}/s on the passenger table, {}/s through the old union",
+                2 * USERS, Math.round(repository), Math.round(table), Math.round(union));
+
+        Passenger passenger = passengerRepository.findByEmail(emails.get(0));
+        assertThat(jdbcTemplate.queryForObject(UNION_LOOKUP, (row, n) -> row.getLong("id"), emails.get(0)))
+                .isEqualTo(passenger.getId());
+    }
+
+    private static double lookupsPerSecond(List<String> emails, Function<String, Long> lookup) {
+        // The first round warms the plan cache and connection pool and is not timed
+        emails.forEach(lookup::apply);
+        long started = System.nanoTime();
+        for (int round = 0; round < LOOKUP_ROUNDS; round++) {
+            for (String email : emails) {
+                assertThat(lookup.apply(email)).isNotNull();
+            }
+        }
+        return (double) LOOKUP_ROUNDS * emails.size() / ((System.nanoTime() - started) / 1e9);
+    }
+}
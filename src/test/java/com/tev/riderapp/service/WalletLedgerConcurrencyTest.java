@@ -0,0 +1,149 @@
+package com.tev.riderapp.service;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Passenger;
+import com.tev.riderapp.model.WalletEntry;
+import com.tev.riderapp.model.WalletEntryType;
+import com.tev.riderapp.rideshare.repository.PassengerRepository;
+import com.tev.riderapp.rideshare.repository.WalletEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers one wallet from many threads at once. Every successful credit and debit must be
+ * reflected in the balance, the ledger must add up to the balance, and the balance must never go
+ * below zero however the debits interleave.
+ */
+@Slf4j
+class WalletLedgerConcurrencyTest extends PostgresIntegrationTest {
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private WalletEntryRepository walletEntryRepository;
+
+    private Long passengerId;
+
+    @BeforeEach
+    void setUp() {
+        passengerId = passengerRepository.save(TestData.passenger()).getId();
+    }
+
+    @Test
+    void concurrentCreditsAndDebitsOnAHotWalletLoseNoUpdates() throws Exception {
+        walletLedgerService.credit(passengerId, 1_000, WalletEntryType.TOP_UP, "opening");
+        AtomicLong expected = new AtomicLong(1_000);
+
+        long started = System.nanoTime();
+        run(THREADS, thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                // Debits outweigh credits, so some must be refused for insufficient balance
+                if ((thread + i) % 2 == 0) {
+                    walletLedgerService.credit(passengerId, 70, WalletEntryType.TOP_UP, null);
+                    expected.addAndGet(70);
+                } else {
+                    try {
+                        walletLedgerService.debit(passengerId, 100, WalletEntryType.RIDE_PAYMENT, null);
+                        expected.addAndGet(-100);
+                    } catch (RuntimeException e) {
+                        assertThat(e).hasMessage("Insufficient wallet balance");
+                    }
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long balance = walletLedgerService.getBalanceMinor(passengerId);
+        assertThat(balance).isEqualTo(expected.get()).isNotNegative();
+        assertThat(ledgerTotal()).isEqualTo(balance);
+        // Reported rather than asserted; throughput depends on the machine running the build
+        log.info("{} wallet operations on one passenger from {} threads: {} ops/s",
+                THREADS * OPERATIONS_PER_THREAD, THREADS, Math.round(THREADS * OPERATIONS_PER_THREAD / seconds));
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        walletLedgerService.credit(passengerId, 10_000, WalletEntryType.TOP_UP, "opening");
+        AtomicLong succeeded = new AtomicLong();
+
+        run(THREADS, thread -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    walletLedgerService.debit(passengerId, 100, WalletEntryType.RIDE_PAYMENT, null);
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertThat(e).hasMessage("Insufficient wallet balance");
+                }
+            }
+        });
+
+        assertThat(succeeded.get()).isEqualTo(100);
+        assertThat(walletLedgerService.getBalanceMinor(passengerId)).isZero();
+        assertThat(ledgerTotal()).isZero();
+    }
+
+    @Test
+    void savingAStalePassengerKeepsTheLedgerBalance() {
+        Passenger stale = passengerRepository.findById(passengerId).orElseThrow();
+        walletLedgerService.credit(passengerId, 2_500, WalletEntryType.TOP_UP, null);
+
+        // As resetPassword does with a passenger loaded before the top-up committed
+        stale.setPassword("changed");
+        passengerRepository.save(stale);
+
+        assertThat(walletLedgerService.getBalanceMinor(passengerId)).isEqualTo(2_500);
+    }
+
+    private long ledgerTotal() {
+        return walletEntryRepository.findByPassengerIdOrderByIdDesc(passengerId).stream()
+                .mapToLong(WalletEntry::getAmountMinor)
+                .sum();
+    }
+
+    private static void run(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
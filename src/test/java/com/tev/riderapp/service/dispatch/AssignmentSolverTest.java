@@ -0,0 +1,100 @@
+package com.tev.riderapp.service.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the solver against exhaustive search on small random matrices: square, with more rows
+ * than columns and the reverse, and with some pairs unreachable. The best assignment first leaves
+ * as few matchable rows unassigned as possible, then has the lowest total cost.
+ */
+class AssignmentSolverTest {
+    private static final int CASES = 2000;
+
+    @Test
+    void matchesBruteForceOnRandomMatrices() {
+        Random random = new Random(42);
+        for (int i = 0; i < CASES; i++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            double unreachableShare = i % 3 == 0 ? 0 : random.nextDouble() * 0.7;
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int c = 0; c < columns; c++) {
+                    row[c] = random.nextDouble() < unreachableShare ? AssignmentSolver.UNREACHABLE : random.nextDouble() * 10;
+                }
+            }
+            check(cost);
+        }
+    }
+
+    @Test
+    void leavesRowsWithOnlyUnreachablePairsUnassigned() {
+        double U = AssignmentSolver.UNREACHABLE;
+        int[] assignment = AssignmentSolver.solve(new double[][]{
+                {U, U, U},
+                {4, U, 1},
+                {2, 3, U}
+        });
+        assertThat(assignment).containsExactly(-1, 2, 0);
+    }
+
+    @Test
+    void emptyMatrixHasNoAssignment() {
+        assertThat(AssignmentSolver.solve(new double[0][0])).isEmpty();
+    }
+
+    private static void check(double[][] cost) {
+        int[] assignment = AssignmentSolver.solve(cost);
+        assertThat(assignment).hasSize(cost.length);
+
+        Set<Integer> usedColumns = new HashSet<>();
+        int assigned = 0;
+        double total = 0;
+        for (int row = 0; row < assignment.length; row++) {
+            int column = assignment[row];
+            if (column < 0) {
+                continue;
+            }
+            assertThat(usedColumns.add(column)).as("column %d assigned twice", column).isTrue();
+            assertThat(cost[row][column]).isLessThan(AssignmentSolver.UNREACHABLE);
+            assigned++;
+            total += cost[row][column];
+        }
+
+        Best best = new Best();
+        search(cost, 0, new boolean[cost[0].length], 0, 0, best);
+        assertThat(assigned).isEqualTo(best.assigned);
+        assertThat(total).isCloseTo(best.total, within(1e-6));
+    }
+
+    // Tries every way of giving each row a distinct column or none
+    private static void search(double[][] cost, int row, boolean[] used, int assigned, double total, Best best) {
+        if (row == cost.length) {
+            if (assigned > best.assigned || (assigned == best.assigned && total < best.total)) {
+                best.assigned = assigned;
+                best.total = total;
+            }
+            return;
+        }
+        search(cost, row + 1, used, assigned, total, best);
+        for (int column = 0; column < used.length; column++) {
+            if (!used[column] && cost[row][column] < AssignmentSolver.UNREACHABLE) {
+                used[column] = true;
+                search(cost, row + 1, used, assigned + 1, total + cost[row][column], best);
+                used[column] = false;
+            }
+        }
+    }
+
+    private static final class Best {
+        private int assigned = -1;
+        private double total = Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,133 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Ride;
+import com.tev.riderapp.observer.RideStreamNotifier;
+import com.tev.riderapp.rideshare.repository.RideRepository;
+import com.tev.riderapp.service.DistanceService;
+import com.tev.riderapp.service.GoogleMapsService;
+import com.tev.riderapp.service.maps.LocalDistanceProvider;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One batch round over rides and drivers spread uniformly across a 30km square, compared with
+ * greedy nearest-driver matching in request order over the same fleet. Logs the solve time and
+ * average pickup distance of each; only checks that every match is valid. Run with -Pbenchmarks.
+ */
+@Slf4j
+@Tag("benchmark")
+class BatchDispatchBenchmark {
+    private static final double SOUTH = 51.35;
+    private static final double WEST = -0.35;
+    // About 30km in each direction at London's latitude
+    private static final double HEIGHT = 0.27;
+    private static final double WIDTH = 0.43;
+
+    @ParameterizedTest(name = "{0} rides x {0} drivers, groups of up to {1}")
+    @CsvSource({"1000, 1000", "1000, 250", "10000, 250"})
+    void batchRoundAgainstGreedy(int size, int maxGroupRides) {
+        Random random = new Random(7);
+        List<Driver> drivers = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Driver driver = TestData.driver(SOUTH + random.nextDouble() * HEIGHT, WEST + random.nextDouble() * WIDTH);
+            driver.setId(id);
+            drivers.add(driver);
+        }
+        List<Ride> rides = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Ride ride = TestData.ride(null, null, Ride.RideStatus.REQUESTED);
+            ride.setId(id);
+            ride.setPickupLocation(TestData.location(SOUTH + random.nextDouble() * HEIGHT, WEST + random.nextDouble() * WIDTH));
+            rides.add(ride);
+        }
+
+        Set<Long> offered = new HashSet<>();
+        SimpleMeterRegistry metrics = new SimpleMeterRegistry();
+        BatchDispatcher dispatcher = dispatcher(drivers, rides, offered, metrics, size, maxGroupRides);
+        dispatcher.dispatch();
+
+        Timer solve = metrics.get("dispatch.batch.solve").timer();
+        DistributionSummary pickup = metrics.get("dispatch.batch.pickup.km").summary();
+        assertThat(pickup.count()).isEqualTo(offered.size()).isPositive();
+        log.info("Batch  {}x{} (groups <= {}): solved in {} ms, matched {}, average pickup {} km",
+                size, size, maxGroupRides, Math.round(solve.totalTime(TimeUnit.MILLISECONDS)), pickup.count(),
+                String.format("%.3f", pickup.mean()));
+
+        long started = System.nanoTime();
+        double[] greedy = greedy(drivers, rides);
+        log.info("Greedy {}x{}: matched in {} ms, matched {}, average pickup {} km", size, size,
+                Math.round((System.nanoTime() - started) / 1e6), (long) greedy[0], String.format("%.3f", greedy[1] / greedy[0]));
+    }
+
+    private static BatchDispatcher dispatcher(List<Driver> drivers, List<Ride> rides, Set<Long> offered,
+                                              SimpleMeterRegistry metrics, int maxRides, int maxGroupRides) {
+        DriverLocationIndex index = new DriverLocationIndex(0.01);
+        drivers.forEach(index::update);
+
+        RideRepository rideRepository = mock(RideRepository.class);
+        when(rideRepository.findOldestByStatus(eq(Ride.RideStatus.REQUESTED), any(Limit.class))).thenReturn(rides);
+        RideStreamNotifier notifier = mock(RideStreamNotifier.class);
+        when(notifier.hasOfferStream(anyLong())).thenReturn(true);
+        when(notifier.offerRide(anyLong(), any(Ride.class))).thenAnswer(invocation -> offered.add(invocation.getArgument(0)));
+
+        LocalDistanceProvider local = new LocalDistanceProvider();
+        ReflectionTestUtils.setField(local, "roadFactor", 1.3);
+        ReflectionTestUtils.setField(local, "averageSpeedKmh", 30.0);
+        DistanceService distanceService = new DistanceService(mock(GoogleMapsService.class), local);
+        ReflectionTestUtils.setField(distanceService, "provider", "local");
+
+        BatchDispatcher dispatcher = new BatchDispatcher(rideRepository, index, notifier, distanceService, metrics);
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "maxRides", maxRides);
+        ReflectionTestUtils.setField(dispatcher, "candidatesPerRide", 8);
+        ReflectionTestUtils.setField(dispatcher, "maxPickupKm", 10.0);
+        ReflectionTestUtils.setField(dispatcher, "maxGroupRides", maxGroupRides);
+        ReflectionTestUtils.setField(dispatcher, "offerTtlMs", 15_000L);
+        return dispatcher;
+    }
+
+    // First come, first served: each ride in turn takes the nearest driver still free. Returns {matched, total road km}
+    private static double[] greedy(List<Driver> drivers, List<Ride> rides) {
+        DriverLocationIndex index = new DriverLocationIndex(0.01);
+        drivers.forEach(index::update);
+        LocalDistanceProvider local = new LocalDistanceProvider();
+        ReflectionTestUtils.setField(local, "roadFactor", 1.3);
+        ReflectionTestUtils.setField(local, "averageSpeedKmh", 30.0);
+        double matched = 0;
+        double totalKm = 0;
+        for (Ride ride : rides) {
+            List<Driver> nearest = index.findNearest(ride.getPickupLocation().getLatitude(),
+                    ride.getPickupLocation().getLongitude(), 1, 10.0, driver -> true);
+            if (!nearest.isEmpty()) {
+                Driver driver = nearest.get(0);
+                totalKm += local.estimate(driver.getCurrentLocation(), ride.getPickupLocation()).getDistanceKm();
+                matched++;
+                index.remove(driver.getId());
+            }
+        }
+        return new double[]{matched, totalKm};
+    }
+}
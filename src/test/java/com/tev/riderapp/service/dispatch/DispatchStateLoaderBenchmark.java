@@ -0,0 +1,74 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times the startup warm start with 100k available drivers, loaded on one thread and on the
+ * configured pool. The drivers are committed, since the loader reads them on its own connections,
+ * and removed from the table and the index afterwards. Run with -Pbenchmarks.
+ */
+@Slf4j
+@Tag("benchmark")
+class DispatchStateLoaderBenchmark extends PostgresIntegrationTest {
+    private static final int DRIVERS = 100_000;
+    private static final long FIRST_ID = 30_000_001L;
+
+    @Autowired
+    private DispatchStateLoader dispatchStateLoader;
+
+    @Autowired
+    private DriverLocationIndex driverLocationIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO driver (id, email, available, rating, earnings, latitude, longitude)"
+                + " SELECT 30000000 + g, 'warm-start-driver-' || g || '@example.com', true, 0, 0,"
+                + " 51.35 + (g % 997) * 0.00027, -0.35 + (g % 1009) * 0.00043 FROM generate_series(1, ?) g", DRIVERS);
+        jdbcTemplate.execute("ANALYZE driver");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (long id = FIRST_ID; id < FIRST_ID + DRIVERS; id++) {
+            driverLocationIndex.remove(id);
+        }
+        jdbcTemplate.update("DELETE FROM driver WHERE id >= ? AND id < ?", FIRST_ID, FIRST_ID + DRIVERS);
+    }
+
+    @Test
+    void warmStartWithOneHundredThousandDrivers() {
+        int configuredThreads = (int) ReflectionTestUtils.getField(dispatchStateLoader, "threads");
+        try {
+            for (int threads : new int[]{1, configuredThreads}) {
+                for (long id = FIRST_ID; id < FIRST_ID + DRIVERS; id++) {
+                    driverLocationIndex.remove(id);
+                }
+                ReflectionTestUtils.setField(dispatchStateLoader, "threads", threads);
+
+                long started = System.nanoTime();
+                dispatchStateLoader.run(null);
+                long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+                assertThat(driverLocationIndex.contains(FIRST_ID)).isTrue();
+                assertThat(driverLocationIndex.contains(FIRST_ID + DRIVERS - 1)).isTrue();
+                log.info("Warm start of {} drivers on {} thread(s): {} ms ({} drivers/s)", DRIVERS, threads,
+                        elapsedMillis, DRIVERS * 1000L / Math.max(1, elapsedMillis));
+            }
+        } finally {
+            ReflectionTestUtils.setField(dispatchStateLoader, "threads", configuredThreads);
+        }
+    }
+}
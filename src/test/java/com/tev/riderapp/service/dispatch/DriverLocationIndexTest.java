@@ -0,0 +1,56 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Driver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DriverLocationIndexTest {
+    private static final double LAT = 51.5074;
+    private static final double LON = -0.1278;
+
+    private final DriverLocationIndex index = new DriverLocationIndex(0.01);
+
+    @Test
+    void ineligibleDriversCloseByDoNotCrowdOutEligibleOnesFurtherAway() {
+        // Ten ineligible drivers right at the pickup, eligible ones a few hundred metres out
+        for (long id = 1; id <= 10; id++) {
+            index.update(driver(id, LAT + id * 0.00001, LON));
+        }
+        index.update(driver(100, LAT + 0.003, LON));
+        index.update(driver(101, LAT + 0.005, LON));
+        index.update(driver(102, LAT + 0.007, LON));
+
+        List<Driver> nearest = index.findNearest(LAT, LON, 2, 10, driver -> driver.getId() >= 100);
+
+        assertThat(nearest).extracting(Driver::getId).containsExactly(100L, 101L);
+    }
+
+    @Test
+    void driversBeyondTheMaximumDistanceAreLeftOut() {
+        index.update(driver(1, LAT + 0.01, LON));
+        index.update(driver(2, LAT + 0.2, LON));
+
+        List<Driver> nearest = index.findNearest(LAT, LON, 5, 5, driver -> true);
+
+        assertThat(nearest).extracting(Driver::getId).containsExactly(1L);
+    }
+
+    @Test
+    void unfilteredSearchReturnsTheNearestInOrder() {
+        index.update(driver(1, LAT + 0.03, LON));
+        index.update(driver(2, LAT + 0.01, LON));
+        index.update(driver(3, LAT + 0.02, LON));
+
+        assertThat(index.findNearest(LAT, LON, 2)).extracting(Driver::getId).containsExactly(2L, 3L);
+    }
+
+    private static Driver driver(long id, double latitude, double longitude) {
+        Driver driver = TestData.driver(latitude, longitude);
+        driver.setId(id);
+        return driver;
+    }
+}
@@ -0,0 +1,136 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.service.dispatch.cluster.InProcessDispatchStateBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SurgePricingEngineTest {
+    private static final Location PICKUP = TestData.location(51.5074, -0.1278);
+    private static final Location ELSEWHERE = TestData.location(51.7520, -1.2577);
+
+    private final List<InProcessDispatchStateBackend> cluster = new CopyOnWriteArrayList<>();
+    private DriverLocationIndex index;
+    private SurgePricingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        index = new DriverLocationIndex(0.01);
+        engine = newEngine(index);
+    }
+
+    @Test
+    void noDemandMeansNoSurge() {
+        addDrivers(3);
+        engine.recompute();
+
+        assertThat(engine.multiplierAt(PICKUP)).isEqualTo(1.0);
+    }
+
+    @Test
+    void demandAboveThresholdRaisesTheMultiplier() {
+        addDrivers(1);
+        request(3);
+        engine.recompute();
+
+        // 3 requests per driver is 2 over the threshold of 1, at sensitivity 0.5
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(2.0, within(1e-9));
+        assertThat(engine.multiplierAt(ELSEWHERE)).isEqualTo(1.0);
+    }
+
+    @Test
+    void moreSupplyLowersTheMultiplier() {
+        addDrivers(2);
+        request(3);
+        engine.recompute();
+
+        // 1.25 is quoted in whole steps of 0.1
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(1.3, within(1e-9));
+    }
+
+    @Test
+    void demandWithNoDriversIsCappedAtTheMaximum() {
+        request(1);
+        engine.recompute();
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(3.0, within(1e-9));
+
+        addDrivers(1);
+        request(50);
+        engine.recompute();
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(3.0, within(1e-9));
+    }
+
+    @Test
+    void driversLeavingTheIndexNoLongerCountAsSupply() {
+        List<Driver> drivers = addDrivers(3);
+        request(3);
+        engine.recompute();
+        assertThat(engine.multiplierAt(PICKUP)).isEqualTo(1.0);
+
+        drivers.forEach(driver -> index.remove(driver.getId()));
+        engine.recompute();
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(3.0, within(1e-9));
+    }
+
+    @Test
+    void multipliersAreSmoothedTowardsTheTarget() {
+        ReflectionTestUtils.setField(engine, "smoothingAlpha", 0.3);
+        addDrivers(1);
+        request(3);
+
+        engine.recompute();
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(1.3, within(1e-9));
+        engine.recompute();
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(1.5, within(1e-9));
+    }
+
+    @Test
+    void requestsOnOtherNodesCountAsDemand() {
+        SurgePricingEngine otherNode = newEngine(new DriverLocationIndex(0.01));
+        addDrivers(1);
+        for (int i = 0; i < 3; i++) {
+            otherNode.recordRequest(PICKUP);
+        }
+        engine.recompute();
+
+        assertThat(engine.multiplierAt(PICKUP)).isCloseTo(2.0, within(1e-9));
+    }
+
+    private SurgePricingEngine newEngine(DriverLocationIndex driverLocationIndex) {
+        SurgePricingEngine surge = new SurgePricingEngine(0.02, 300, 10, driverLocationIndex,
+                new InProcessDispatchStateBackend(cluster));
+        ReflectionTestUtils.setField(surge, "demandPerDriverThreshold", 1.0);
+        ReflectionTestUtils.setField(surge, "sensitivity", 0.5);
+        ReflectionTestUtils.setField(surge, "maxMultiplier", 3.0);
+        // No smoothing unless a test asks for it, so one recompute reaches the target
+        ReflectionTestUtils.setField(surge, "smoothingAlpha", 1.0);
+        ReflectionTestUtils.setField(surge, "step", 0.1);
+        return surge;
+    }
+
+    private List<Driver> addDrivers(int count) {
+        List<Driver> drivers = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Driver driver = TestData.driver(PICKUP.getLatitude() + i * 0.0001, PICKUP.getLongitude());
+            driver.setId((long) i + 1);
+            index.update(driver);
+            drivers.add(driver);
+        }
+        return drivers;
+    }
+
+    private void request(int count) {
+        for (int i = 0; i < count; i++) {
+            engine.recordRequest(PICKUP);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.tev.riderapp.service.dispatch;
+
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Driver;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.service.dispatch.cluster.InProcessDispatchStateBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Millions of ride requests and driver moves from many threads at once, with recompute running
+ * alongside as the scheduler would. Afterwards every zone's demand and supply must match what the
+ * simulation did, so no update was lost to a race. Throughput and recompute time are logged. Run
+ * with -Pbenchmarks.
+ */
+@Slf4j
+@Tag("benchmark")
+class SurgePricingSimulation {
+    private static final double ZONE_SIZE = 0.02;
+    private static final double SOUTH = 51.35;
+    private static final double WEST = -0.35;
+    private static final double HEIGHT = 0.27;
+    private static final double WIDTH = 0.43;
+
+    private static final int REQUEST_THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 500_000;
+    private static final int DRIVER_THREADS = 4;
+    private static final int DRIVERS_PER_THREAD = 5_000;
+    private static final int MOVES_PER_THREAD = 500_000;
+
+    private final GeoGrid zones = new GeoGrid(ZONE_SIZE);
+
+    @Test
+    void concurrentRequestsMovesAndRecomputesLoseNothing() throws Exception {
+        DriverLocationIndex index = new DriverLocationIndex(0.01);
+        // A window far longer than the run, so every request is still counted at the end
+        SurgePricingEngine engine = new SurgePricingEngine(ZONE_SIZE, 3600, 10, index, new InProcessDispatchStateBackend());
+        ReflectionTestUtils.setField(engine, "demandPerDriverThreshold", 1.0);
+        ReflectionTestUtils.setField(engine, "sensitivity", 0.5);
+        ReflectionTestUtils.setField(engine, "maxMultiplier", 3.0);
+        ReflectionTestUtils.setField(engine, "smoothingAlpha", 0.3);
+        ReflectionTestUtils.setField(engine, "step", 0.1);
+
+        // Final position of each driver, or null when they ended offline; each thread owns its own drivers
+        Location[][] finalPositions = new Location[DRIVER_THREADS][DRIVERS_PER_THREAD];
+        Map<Long, LongAdder> expectedDemand = new ConcurrentHashMap<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong recomputes = new AtomicLong();
+        AtomicLong recomputeNanos = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(REQUEST_THREADS + DRIVER_THREADS + 1);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < REQUEST_THREADS; t++) {
+                Random random = new Random(t);
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        // Demand bunches towards the centre, as it does at rush hour
+                        Location pickup = TestData.location(SOUTH + HEIGHT * clamp(0.5 + random.nextGaussian() * 0.15),
+                                WEST + WIDTH * clamp(0.5 + random.nextGaussian() * 0.15));
+                        engine.recordRequest(pickup);
+                        expectedDemand.computeIfAbsent(zoneOf(pickup), key -> new LongAdder()).increment();
+                    }
+                    return null;
+                }));
+            }
+            for (int t = 0; t < DRIVER_THREADS; t++) {
+                int thread = t;
+                Random random = new Random(100 + t);
+                workers.add(executor.submit(() -> {
+                    Location[] positions = finalPositions[thread];
+                    for (int d = 0; d < DRIVERS_PER_THREAD; d++) {
+                        Driver driver = TestData.driver(SOUTH + random.nextDouble() * HEIGHT, WEST + random.nextDouble() * WIDTH);
+                        driver.setId(driverId(thread, d));
+                        index.update(driver);
+                        positions[d] = driver.getCurrentLocation();
+                    }
+                    start.await();
+                    for (int i = 0; i < MOVES_PER_THREAD; i++) {
+                        int d = random.nextInt(DRIVERS_PER_THREAD);
+                        Location to = TestData.location(SOUTH + random.nextDouble() * HEIGHT, WEST + random.nextDouble() * WIDTH);
+                        if (i % 50 == 0) {
+                            // Some drivers go offline and others come back
+                            if (positions[d] != null) {
+                                index.remove(driverId(thread, d));
+                                positions[d] = null;
+                            } else {
+                                Driver driver = TestData.driver(to.getLatitude(), to.getLongitude());
+                                driver.setId(driverId(thread, d));
+                                index.update(driver);
+                                positions[d] = to;
+                            }
+                        } else if (positions[d] != null) {
+                            index.move(driverId(thread, d), to);
+                            positions[d] = to;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> recomputer = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    long started = System.nanoTime();
+                    engine.recompute();
+                    recomputeNanos.addAndGet(System.nanoTime() - started);
+                    recomputes.incrementAndGet();
+                }
+                return null;
+            });
+
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(10, TimeUnit.MINUTES);
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            running.set(false);
+            recomputer.get(1, TimeUnit.MINUTES);
+
+            long requests = (long) REQUEST_THREADS * REQUESTS_PER_THREAD;
+            long moves = (long) DRIVER_THREADS * MOVES_PER_THREAD;
+            log.info("{} requests and {} driver moves in {} s ({} events/s); {} recomputes at {} ms each",
+                    requests, moves, String.format("%.2f", seconds), Math.round((requests + moves) / seconds),
+                    recomputes.get(), String.format("%.3f", recomputeNanos.get() / 1e6 / Math.max(1, recomputes.get())));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Long, Integer> expectedSupply = new HashMap<>();
+        for (Location[] positions : finalPositions) {
+            for (Location position : positions) {
+                if (position != null) {
+                    expectedSupply.merge(zoneOf(position), 1, Integer::sum);
+                }
+            }
+        }
+        long bucket = ReflectionTestUtils.invokeMethod(engine, "currentBucket");
+        @SuppressWarnings("unchecked")
+        Map<Long, ?> counters = (Map<Long, ?>) ReflectionTestUtils.getField(engine, "zoneCounters");
+        counters.forEach((zone, counter) -> {
+            Object supply = ReflectionTestUtils.getField(counter, "supply");
+            long demand = ReflectionTestUtils.invokeMethod(counter, "demand", bucket);
+            assertThat(supply).as("supply in zone %d", zone).hasToString(String.valueOf(expectedSupply.getOrDefault(zone, 0)));
+            LongAdder requested = expectedDemand.get(zone);
+            assertThat(demand).as("demand in zone %d", zone).isEqualTo(requested != null ? requested.sum() : 0);
+        });
+        assertThat(counters.keySet()).containsAll(expectedDemand.keySet()).containsAll(expectedSupply.keySet());
+    }
+
+    private long zoneOf(Location location) {
+        return zones.cellKey(location.getLatitude(), location.getLongitude());
+    }
+
+    private static long driverId(int thread, int driver) {
+        return (long) thread * DRIVERS_PER_THREAD + driver + 1;
+    }
+
+    private static double clamp(double fraction) {
+        return Math.max(0, Math.min(0.999, fraction));
+    }
+}
@@ -0,0 +1,111 @@
+package com.tev.riderapp.service.dispatch.cluster;
+
+import com.tev.riderapp.PostgresIntegrationTest;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two Postgres backends on the shared database stand in for two nodes. Every event one publishes
+ * must reach the other, and the publish-to-apply latency is reported per flush, which is what
+ * the flush interval adds on top in production.
+ */
+@Slf4j
+class DispatchStatePropagationTest extends PostgresIntegrationTest {
+    private static final int FLUSHES = 50;
+    private static final int EVENTS_PER_FLUSH = 200;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private PostgresDispatchStateBackend sender;
+    private PostgresDispatchStateBackend receiver;
+    private SimpleMeterRegistry receiverMetrics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sender = new PostgresDispatchStateBackend(dataSource, jdbcTemplate, new SimpleMeterRegistry());
+        receiverMetrics = new SimpleMeterRegistry();
+        receiver = new PostgresDispatchStateBackend(dataSource, jdbcTemplate, receiverMetrics);
+        sender.start();
+        receiver.start();
+        awaitListening();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sender.stop();
+        receiver.stop();
+    }
+
+    @Test
+    void everyPublishedEventReachesTheOtherNode() throws Exception {
+        Map<Long, Long> publishedAt = new ConcurrentHashMap<>();
+        long[] latencies = new long[FLUSHES * EVENTS_PER_FLUSH];
+        CountDownLatch applied = new CountDownLatch(latencies.length);
+        receiver.subscribe(event -> {
+            Long sentAt = publishedAt.get(event.getId());
+            if (event.getType() == DispatchEvent.Type.DRIVER_MOVED && sentAt != null) {
+                latencies[(int) (event.getId() - 1)] = System.nanoTime() - sentAt;
+                applied.countDown();
+            }
+        });
+
+        long id = 0;
+        for (int flush = 0; flush < FLUSHES; flush++) {
+            long sentAt = System.nanoTime();
+            for (int i = 0; i < EVENTS_PER_FLUSH; i++) {
+                id++;
+                publishedAt.put(id, sentAt);
+                sender.publish(DispatchEvent.driverMoved(id, 6.5 + i * 1e-4, 3.4));
+            }
+            sender.flush();
+        }
+
+        assertThat(applied.await(30, TimeUnit.SECONDS)).isTrue();
+        Arrays.sort(latencies);
+        Timer timer = receiverMetrics.get("dispatch.state.propagation").timer();
+        log.info("Propagated {} events in {} flushes: p50 {} ms, p99 {} ms, max {} ms (receiver timer mean {} ms)",
+                latencies.length, FLUSHES, millis(latencies[latencies.length / 2]),
+                millis(latencies[latencies.length * 99 / 100]), millis(latencies[latencies.length - 1]),
+                timer.mean(TimeUnit.MILLISECONDS));
+        assertThat(timer.count()).isGreaterThanOrEqualTo(latencies.length);
+    }
+
+    // LISTEN is issued on the backend's own thread; a probe round trip shows it is in place
+    private void awaitListening() throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(1);
+        receiver.subscribe(event -> {
+            if (event.getType() == DispatchEvent.Type.DRIVER_REMOVED && event.getId() == -1L) {
+                ready.countDown();
+            }
+        });
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!ready.await(100, TimeUnit.MILLISECONDS)) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            sender.publish(DispatchEvent.driverRemoved(-1L));
+            sender.flush();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
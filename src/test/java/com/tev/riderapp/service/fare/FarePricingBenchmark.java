@@ -0,0 +1,85 @@
+package com.tev.riderapp.service.fare;
+
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Ride;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fares per second through {@link FarePricingEngine#calculateFare}, for a booked ride (request
+ * time set) and a quote (priced at the current hour), with one zone modifier in play. Run with
+ * -Pbenchmarks; JMH prints the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FarePricingBenchmark {
+    private FarePricingEngine engine;
+    private Ride booked;
+    private Ride quoted;
+
+    @Setup
+    public void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(contains("FROM fare_rules"))).thenReturn(List.of(
+                Map.of("ride_type", "STANDARD", "base_fare", 2.5, "per_km", 1.25, "per_minute", 0.15, "minimum_fare", 5.0),
+                Map.of("ride_type", "POOL", "base_fare", 2.0, "per_km", 0.9, "per_minute", 0.1, "minimum_fare", 4.0),
+                Map.of("ride_type", "LUXURY", "base_fare", 5.0, "per_km", 2.5, "per_minute", 0.3, "minimum_fare", 12.0)));
+        when(jdbcTemplate.queryForList(contains("FROM fare_modifiers"))).thenReturn(List.of(
+                Map.of("start_hour", 22, "end_hour", 6, "multiplier", 1.5),
+                Map.of("ride_type", "STANDARD", "min_latitude", 51.48, "min_longitude", -0.16,
+                        "max_latitude", 51.53, "max_longitude", -0.07, "multiplier", 1.2)));
+        engine = new FarePricingEngine(jdbcTemplate);
+        ReflectionTestUtils.setField(engine, "averageSpeedKmh", 30.0);
+        ReflectionTestUtils.setField(engine, "pricingZone", ZoneId.of("Europe/London"));
+        engine.init();
+
+        booked = TestData.ride(TestData.passenger(), null, Ride.RideStatus.REQUESTED);
+        booked.setRequestTime(LocalDateTime.now());
+        quoted = TestData.ride(TestData.passenger(), null, Ride.RideStatus.REQUESTED);
+        quoted.setRequestTime(null);
+    }
+
+    @Benchmark
+    public double bookedRide() {
+        return engine.calculateFare(Ride.RideType.STANDARD, booked);
+    }
+
+    @Benchmark
+    public double quote() {
+        return engine.calculateFare(Ride.RideType.STANDARD, quoted);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void fareThroughput() throws Exception {
+        new Runner(new OptionsBuilder().include(FarePricingBenchmark.class.getName()).build()).run();
+    }
+}
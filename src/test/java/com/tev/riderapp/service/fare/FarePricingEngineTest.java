@@ -0,0 +1,185 @@
+package com.tev.riderapp.service.fare;
+
+import com.tev.riderapp.TestData;
+import com.tev.riderapp.model.Location;
+import com.tev.riderapp.model.Ride;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compiles a small rule set and checks the fares it produces. Request times are built as instants
+ * in London and converted to the JVM's zone, as rides record them, so the test holds whatever
+ * zone it runs in.
+ */
+class FarePricingEngineTest {
+    private static final ZoneId LONDON = ZoneId.of("Europe/London");
+    private static final Location IN_ZONE = TestData.location(51.5074, -0.1278);
+    private static final Location OUT_OF_ZONE = TestData.location(51.7520, -1.2577);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private FarePricingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.queryForList(contains("FROM fare_rules"))).thenReturn(List.of(
+                rule("STANDARD", 5.0, 2.0, 0, 0),
+                rule("POOL", 3.0, 1.5, 0, 0),
+                rule("LUXURY", 0, 0.5, 0, 20.0)));
+        when(jdbcTemplate.queryForList(contains("FROM fare_modifiers"))).thenReturn(List.of(
+                // Night rate for every type, wrapping past midnight
+                modifier(null, 22, 6, null, 1.5),
+                // Central London box for standard rides, all day
+                modifier("STANDARD", null, null, new double[]{51.48, -0.16, 51.53, -0.07}, 1.2)));
+
+        engine = new FarePricingEngine(jdbcTemplate);
+        ReflectionTestUtils.setField(engine, "averageSpeedKmh", 30.0);
+        ReflectionTestUtils.setField(engine, "pricingZone", LONDON);
+        engine.init();
+    }
+
+    @Test
+    void nightWindowWrapsPastMidnight() {
+        // 5 + 2 * 10 km
+        for (int hour : new int[]{22, 23, 0, 3, 5}) {
+            assertThat(fare(Ride.RideType.STANDARD, winter(hour), OUT_OF_ZONE)).as("hour %d", hour).isCloseTo(37.5, within(1e-9));
+        }
+        for (int hour : new int[]{6, 12, 21}) {
+            assertThat(fare(Ride.RideType.STANDARD, winter(hour), OUT_OF_ZONE)).as("hour %d", hour).isCloseTo(25.0, within(1e-9));
+        }
+    }
+
+    @Test
+    void hoursAreTakenInThePricingZone() {
+        // 05:30 UTC is 06:30 in London during summer time, so after the night window ends
+        LocalDateTime morning = atInstant(ZonedDateTime.of(2026, 7, 15, 5, 30, 0, 0, ZoneId.of("UTC")));
+        assertThat(fare(Ride.RideType.STANDARD, morning, OUT_OF_ZONE)).isCloseTo(25.0, within(1e-9));
+
+        // 21:30 UTC is 22:30 in London, inside it
+        LocalDateTime evening = atInstant(ZonedDateTime.of(2026, 7, 15, 21, 30, 0, 0, ZoneId.of("UTC")));
+        assertThat(fare(Ride.RideType.STANDARD, evening, OUT_OF_ZONE)).isCloseTo(37.5, within(1e-9));
+    }
+
+    @Test
+    void zoneModifierOnlyAppliesToItsRideTypeInsideTheBox() {
+        assertThat(fare(Ride.RideType.STANDARD, winter(12), IN_ZONE)).isCloseTo(30.0, within(1e-9));
+        assertThat(fare(Ride.RideType.POOL, winter(12), IN_ZONE)).isCloseTo(18.0, within(1e-9));
+        // Zone and night multipliers stack
+        assertThat(fare(Ride.RideType.STANDARD, winter(23), IN_ZONE)).isCloseTo(45.0, within(1e-9));
+    }
+
+    @Test
+    void minimumFareAppliesBeforeMultipliers() {
+        assertThat(fare(Ride.RideType.LUXURY, winter(12), OUT_OF_ZONE)).isCloseTo(20.0, within(1e-9));
+
+        Ride surged = ride(winter(23), OUT_OF_ZONE);
+        surged.setSurgeMultiplier(2.0);
+        assertThat(engine.calculateFare(Ride.RideType.LUXURY, surged)).isCloseTo(60.0, within(1e-9));
+    }
+
+    @Test
+    void cachedHourFollowsTheClockChange() {
+        // 21:30 UTC is inside the night window in summer (22:30 in London) but not in winter
+        LocalDateTime winterEvening = atInstant(ZonedDateTime.of(2026, 1, 15, 21, 30, 0, 0, ZoneId.of("UTC")));
+        LocalDateTime summerEvening = atInstant(ZonedDateTime.of(2026, 7, 15, 21, 30, 0, 0, ZoneId.of("UTC")));
+
+        assertThat(fare(Ride.RideType.STANDARD, winterEvening, OUT_OF_ZONE)).isCloseTo(25.0, within(1e-9));
+        assertThat(fare(Ride.RideType.STANDARD, summerEvening, OUT_OF_ZONE)).isCloseTo(37.5, within(1e-9));
+        assertThat(fare(Ride.RideType.STANDARD, winterEvening, OUT_OF_ZONE)).isCloseTo(25.0, within(1e-9));
+    }
+
+    @Test
+    void pricingWithinAnHourAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        // Booked and quoted now, as in production, so both paths are in the current hour
+        Ride ride = ride(LocalDateTime.now(), IN_ZONE);
+        Ride now = ride(null, IN_ZONE);
+        double total = 0;
+        for (int i = 0; i < 100_000; i++) {
+            total += engine.calculateFare(Ride.RideType.STANDARD, ride) + engine.calculateFare(Ride.RideType.STANDARD, now);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            total += engine.calculateFare(Ride.RideType.STANDARD, ride) + engine.calculateFare(Ride.RideType.STANDARD, now);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(total).isPositive();
+        // Two ZonedDateTimes a call would be megabytes; a few bytes are the measurement itself and a
+        // possible change of the current hour
+        assertThat(allocated).isLessThan(1024);
+    }
+
+    @Test
+    void failedReloadKeepsThePreviousRules() {
+        when(jdbcTemplate.queryForList(contains("FROM fare_rules"))).thenThrow(new IllegalStateException("database down"));
+
+        engine.reload();
+
+        assertThat(fare(Ride.RideType.STANDARD, winter(12), OUT_OF_ZONE)).isCloseTo(25.0, within(1e-9));
+    }
+
+    private double fare(Ride.RideType rideType, LocalDateTime requestTime, Location pickup) {
+        return engine.calculateFare(rideType, ride(requestTime, pickup));
+    }
+
+    private static Ride ride(LocalDateTime requestTime, Location pickup) {
+        Ride ride = new Ride();
+        ride.setRequestTime(requestTime);
+        ride.setPickupLocation(pickup);
+        ride.setDistance(10.0);
+        ride.setSurgeMultiplier(1.0);
+        return ride;
+    }
+
+    // London is on GMT in January, so these hours are the same in UTC
+    private static LocalDateTime winter(int hour) {
+        return atInstant(ZonedDateTime.of(2026, 1, 15, hour, 0, 0, 0, LONDON));
+    }
+
+    private static LocalDateTime atInstant(ZonedDateTime time) {
+        return time.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private static Map<String, Object> rule(String rideType, double baseFare, double perKm, double perMinute, double minimumFare) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("ride_type", rideType);
+        row.put("base_fare", baseFare);
+        row.put("per_km", perKm);
+        row.put("per_minute", perMinute);
+        row.put("minimum_fare", minimumFare);
+        return row;
+    }
+
+    private static Map<String, Object> modifier(String rideType, Integer startHour, Integer endHour, double[] box, double multiplier) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("ride_type", rideType);
+        row.put("start_hour", startHour);
+        row.put("end_hour", endHour);
+        row.put("min_latitude", box != null ? box[0] : null);
+        row.put("min_longitude", box != null ? box[1] : null);
+        row.put("max_latitude", box != null ? box[2] : null);
+        row.put("max_longitude", box != null ? box[3] : null);
+        row.put("multiplier", multiplier);
+        return row;
+    }
+}